@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.benchmark;
+
+import aztech.modern_industrialization.textures.TextureHelper;
+import aztech.modern_industrialization.textures.coloramp.BakableTargetColoramp;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the colorization of a 16x16 texture with a
+ * {@link BakableTargetColoramp}, and the baking of the coloramp itself. The
+ * textures are synthetic noisy gradients, so that no resource manager is
+ * needed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class ColorampBenchmark {
+    private static final int TEXTURE_SIZE = 16 * 16;
+
+    private int[] fromPixels;
+    private int[] toPixels;
+    private double[] luminances;
+    private BakableTargetColoramp coloramp;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        fromPixels = createTexture(random, 0x808080);
+        toPixels = createTexture(random, 0xB87333);
+        luminances = new double[TEXTURE_SIZE];
+        for (int i = 0; i < TEXTURE_SIZE; ++i) {
+            luminances[i] = TextureHelper.getLuminance(fromPixels[i]);
+        }
+        coloramp = new BakableTargetColoramp(0xB87333, "benchmark:from", "benchmark:to");
+        coloramp.bake(fromPixels, toPixels);
+    }
+
+    /**
+     * Same work per pixel as {@code TextureHelper.colorize}.
+     */
+    @Benchmark
+    public int colorize() {
+        int result = 0;
+        for (double luminance : luminances) {
+            result ^= coloramp.getRGB(luminance);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public BakableTargetColoramp bake() {
+        coloramp.bake(fromPixels, toPixels);
+        return coloramp;
+    }
+
+    private static int[] createTexture(Random random, int rgb) {
+        int[] pixels = new int[TEXTURE_SIZE];
+        for (int i = 0; i < TEXTURE_SIZE; ++i) {
+            double brightness = 0.3 + 0.7 * i / TEXTURE_SIZE + 0.1 * random.nextGaussian();
+            int r = Math.max(0, Math.min(255, (int) (TextureHelper.getRrgb(rgb) * brightness)));
+            int g = Math.max(0, Math.min(255, (int) (TextureHelper.getGrgb(rgb) * brightness)));
+            int b = Math.max(0, Math.min(255, (int) (TextureHelper.getBrgb(rgb) * brightness)));
+            pixels[i] = TextureHelper.fromArgb(255, r, g, b);
+        }
+        return pixels;
+    }
+}
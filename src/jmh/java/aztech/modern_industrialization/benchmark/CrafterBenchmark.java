@@ -0,0 +1,262 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.benchmark;
+
+import aztech.modern_industrialization.MIIdentifier;
+import aztech.modern_industrialization.inventory.ConfigurableFluidStack;
+import aztech.modern_industrialization.inventory.ConfigurableItemStack;
+import aztech.modern_industrialization.machines.components.CrafterComponent;
+import aztech.modern_industrialization.machines.recipe.MachineRecipe;
+import aztech.modern_industrialization.machines.recipe.MachineRecipeType;
+import aztech.modern_industrialization.util.Simulation;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.World;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks {@link CrafterComponent#tickRecipe} against a synthetic recipe
+ * type with thousands of two-input recipes.
+ *
+ * <p>
+ * The crafters have no world: the synthetic recipe type ignores it, and
+ * {@link aztech.modern_industrialization.benchmark.mixin.CrafterComponentMixin}
+ * skips the client side check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class CrafterBenchmark {
+    @Param({ "1000", "5000" })
+    public int recipeCount;
+
+    private SyntheticRecipeType recipeType;
+    private List<Item> items;
+    private MachineRecipe targetRecipe;
+
+    private StubInventory hitInventory;
+    private CrafterComponent hitCrafter;
+    private StubInventory noMatchInventory;
+    private CrafterComponent noMatchCrafter;
+    private StubInventory outputFullInventory;
+    private CrafterComponent outputFullCrafter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        items = new ArrayList<>();
+        for (Item item : Registry.ITEM) {
+            if (item != Items.AIR && item.getMaxCount() == 64) {
+                items.add(item);
+            }
+        }
+        recipeType = new SyntheticRecipeType();
+        for (int i = 0; i < recipeCount; ++i) {
+            Item first = items.get(i % items.size());
+            Item second = items.get((i / items.size() + i + 1) % items.size());
+            recipeType.recipes.add(recipeType.read(new MIIdentifier("benchmark_" + i), createRecipeJson(first, second, items.get(i % 7))));
+        }
+        targetRecipe = recipeType.recipes.get(recipeCount / 2);
+
+        // Matching inputs and empty outputs: a recipe is started and finished every tick.
+        hitInventory = new StubInventory();
+        hitCrafter = new CrafterComponent(hitInventory, new StubBehavior(recipeType));
+        // A single input that is only ever used with another input: no recipe matches.
+        noMatchInventory = new StubInventory();
+        noMatchCrafter = new CrafterComponent(noMatchInventory, new StubBehavior(recipeType));
+        // Matching inputs, but the outputs are full of another item.
+        outputFullInventory = new StubInventory();
+        outputFullCrafter = new CrafterComponent(outputFullInventory, new StubBehavior(recipeType));
+        for (ConfigurableItemStack stack : outputFullInventory.itemOutputs) {
+            stack.setAmount(64);
+            stack.setKey(ItemVariant.of(Items.BEDROCK));
+        }
+
+        resetHitInventory();
+        setInputs(noMatchInventory, targetRecipe.itemInputs.get(0).getInputItems().get(0), Items.AIR, 64);
+        setInputs(outputFullInventory, getInputItem(0), getInputItem(1), 64);
+    }
+
+    @Benchmark
+    public boolean hit() {
+        boolean active = hitCrafter.tickRecipe();
+        resetHitInventory();
+        return active;
+    }
+
+    @Benchmark
+    public boolean noMatch() {
+        return noMatchCrafter.tickRecipe();
+    }
+
+    /**
+     * Change the input amount before every tick, to measure the cost of the recipe
+     * search itself.
+     */
+    @Benchmark
+    public boolean noMatchChangedInventory() {
+        ConfigurableItemStack stack = noMatchInventory.itemInputs.get(0);
+        stack.setAmount(stack.getAmount() == 64 ? 63 : 64);
+        return noMatchCrafter.tickRecipe();
+    }
+
+    @Benchmark
+    public boolean outputFull() {
+        return outputFullCrafter.tickRecipe();
+    }
+
+    @Benchmark
+    public boolean outputFullChangedInventory() {
+        ConfigurableItemStack stack = outputFullInventory.itemInputs.get(0);
+        stack.setAmount(stack.getAmount() == 64 ? 63 : 64);
+        return outputFullCrafter.tickRecipe();
+    }
+
+    private Item getInputItem(int index) {
+        return targetRecipe.itemInputs.get(index).getInputItems().get(0);
+    }
+
+    private void resetHitInventory() {
+        setInputs(hitInventory, getInputItem(0), getInputItem(1), 64);
+        for (ConfigurableItemStack stack : hitInventory.itemOutputs) {
+            stack.empty();
+        }
+    }
+
+    private static void setInputs(StubInventory inventory, Item first, Item second, int amount) {
+        ConfigurableItemStack firstStack = inventory.itemInputs.get(0);
+        firstStack.setAmount(amount);
+        firstStack.setKey(ItemVariant.of(first));
+        ConfigurableItemStack secondStack = inventory.itemInputs.get(1);
+        if (second == Items.AIR) {
+            secondStack.empty();
+        } else {
+            secondStack.setAmount(amount);
+            secondStack.setKey(ItemVariant.of(second));
+        }
+    }
+
+    private static JsonObject createRecipeJson(Item first, Item second, Item output) {
+        JsonObject json = new JsonObject();
+        json.addProperty("eu", 2);
+        json.addProperty("duration", 1);
+        JsonArray inputs = new JsonArray();
+        inputs.add(createItemJson(first));
+        inputs.add(createItemJson(second));
+        json.add("item_inputs", inputs);
+        json.add("item_outputs", createItemJson(output));
+        return json;
+    }
+
+    private static JsonObject createItemJson(Item item) {
+        JsonObject json = new JsonObject();
+        json.addProperty("item", Registry.ITEM.getId(item).toString());
+        json.addProperty("amount", 1);
+        return json;
+    }
+
+    private static class SyntheticRecipeType extends MachineRecipeType {
+        final List<MachineRecipe> recipes = new ArrayList<>();
+
+        SyntheticRecipeType() {
+            super(new MIIdentifier("benchmark"));
+            withItemInputs().withItemOutputs();
+        }
+
+        @Override
+        public Collection<MachineRecipe> getRecipes(ServerWorld world) {
+            return recipes;
+        }
+    }
+
+    private static class StubInventory implements CrafterComponent.Inventory {
+        final List<ConfigurableItemStack> itemInputs = List.of(ConfigurableItemStack.standardInputSlot(),
+                ConfigurableItemStack.standardInputSlot());
+        final List<ConfigurableItemStack> itemOutputs = List.of(ConfigurableItemStack.standardOutputSlot(),
+                ConfigurableItemStack.standardOutputSlot());
+
+        @Override
+        public List<ConfigurableItemStack> getItemInputs() {
+            return itemInputs;
+        }
+
+        @Override
+        public List<ConfigurableItemStack> getItemOutputs() {
+            return itemOutputs;
+        }
+
+        @Override
+        public List<ConfigurableFluidStack> getFluidInputs() {
+            return List.of();
+        }
+
+        @Override
+        public List<ConfigurableFluidStack> getFluidOutputs() {
+            return List.of();
+        }
+    }
+
+    private static class StubBehavior implements CrafterComponent.Behavior {
+        private final SyntheticRecipeType recipeType;
+
+        StubBehavior(SyntheticRecipeType recipeType) {
+            this.recipeType = recipeType;
+        }
+
+        @Override
+        public long consumeEu(long max, Simulation simulation) {
+            return max;
+        }
+
+        @Override
+        public MachineRecipeType recipeType() {
+            return recipeType;
+        }
+
+        @Override
+        public long getBaseRecipeEu() {
+            return 2;
+        }
+
+        @Override
+        public long getMaxRecipeEu() {
+            return 2;
+        }
+
+        @Override
+        public World getCrafterWorld() {
+            return null;
+        }
+    }
+}
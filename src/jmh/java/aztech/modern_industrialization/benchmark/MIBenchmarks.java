@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.benchmark;
+
+import aztech.modern_industrialization.ModernIndustrialization;
+import aztech.modern_industrialization.benchmark.nuclear.ReactorSimulator;
+import java.io.IOException;
+import net.fabricmc.api.DedicatedServerModInitializer;
+import net.minecraft.Bootstrap;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * MI benchmarks. Can be run with {@code ./gradlew runBenchmarkServer}.
+ *
+ * <p>
+ * The benchmarks run in-process, once all the mods have been initialized (so
+ * that the registries and the mixins are available), and the game exits when
+ * they are done: no server or world is ever started. The value of the
+ * "modern_industrialization.benchmark" property is the regex of the benchmarks
+ * to run, for example {@code -Dmodern_industrialization.benchmark=Crafter}.
+ *
+ * <p>
+ * The "modern_industrialization.reactorSimulator" property runs the
+ * {@link ReactorSimulator} instead, with the value of the property as its
+ * command line.
+ */
+public class MIBenchmarks implements DedicatedServerModInitializer {
+    @Override
+    public void onInitializeServer() {
+        String reactorCommandLine = System.getProperty("modern_industrialization.reactorSimulator");
+        if (reactorCommandLine != null) {
+            Bootstrap.initialize();
+            int exitCode = 0;
+            try {
+                ReactorSimulator.run(reactorCommandLine);
+            } catch (IOException | RuntimeException ex) {
+                ModernIndustrialization.LOGGER.error("Failed to run the reactor simulator", ex);
+                exitCode = 1;
+            }
+            System.exit(exitCode);
+        }
+
+        String include = System.getProperty("modern_industrialization.benchmark");
+        if (include == null) {
+            return;
+        }
+        if (include.isEmpty()) {
+            include = ".*";
+        }
+
+        Bootstrap.initialize();
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                // Forking would start a new JVM without the game environment.
+                .forks(0)
+                .addProfiler(GCProfiler.class)
+                .build();
+        int exitCode = 0;
+        try {
+            new Runner(options).run();
+        } catch (RunnerException ex) {
+            ModernIndustrialization.LOGGER.error("Failed to run the benchmarks", ex);
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.benchmark;
+
+import aztech.modern_industrialization.ModernIndustrialization;
+import aztech.modern_industrialization.pipes.api.PipeNetwork;
+import aztech.modern_industrialization.pipes.api.PipeNetworkData;
+import aztech.modern_industrialization.pipes.api.PipeNetworkManager;
+import aztech.modern_industrialization.pipes.api.PipeNetworkType;
+import aztech.modern_industrialization.pipes.electricity.ElectricityNetworkData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Stress test for the connectivity of {@link PipeNetworkManager}: builds a
+ * network of 100k pipes, then cuts a random link and puts it back at every
+ * invocation. The state is checked for coherence after every iteration.
+ *
+ * <p>
+ * The heap footprint of the manager (positions, links and networks, without the
+ * nodes which are not loaded here) is logged once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class PipeNetworkBenchmark {
+    private static PipeNetworkType type;
+
+    @Param({ "100000" })
+    public int nodeCount;
+
+    /**
+     * A line is the worst case for the split detection, a square grid is closer to
+     * real pipe networks with a lot of cycles.
+     */
+    @Param({ "line", "grid" })
+    public String shape;
+
+    private PipeNetworkManager manager;
+    private final List<BlockPos> linkPositions = new ArrayList<>();
+    private final List<Direction> linkDirections = new ArrayList<>();
+    private final Random random = new Random(42);
+    private boolean footprintLogged = false;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        if (type == null) {
+            type = PipeNetworkType.register(new Identifier("modern_industrialization_benchmarks", "stress_pipe"), BenchmarkNetwork::new,
+                    () -> null, 0, false, null);
+        }
+        manager = new PipeNetworkManager(type);
+        linkPositions.clear();
+        linkDirections.clear();
+
+        int width = shape.equals("line") ? nodeCount : (int) Math.ceil(Math.sqrt(nodeCount));
+        for (int i = 0; i < nodeCount; ++i) {
+            // Nodes are not loaded, which the manager supports.
+            manager.addNode(null, new BlockPos(i % width, 0, i / width), new ElectricityNetworkData());
+        }
+        for (int i = 0; i < nodeCount; ++i) {
+            BlockPos pos = new BlockPos(i % width, 0, i / width);
+            if (i % width != width - 1 && i + 1 < nodeCount) {
+                addLink(pos, Direction.EAST);
+            }
+            if (i + width < nodeCount) {
+                addLink(pos, Direction.SOUTH);
+            }
+        }
+        checkSingleNetwork();
+
+        if (!footprintLogged) {
+            footprintLogged = true;
+            long bytes = GraphLayout.parseInstance(manager).totalSize();
+            ModernIndustrialization.LOGGER.info(String.format("Heap footprint of a %d node %s: %.1f MB, %.1f bytes per pipe", nodeCount, shape,
+                    bytes / 1e6, (double) bytes / nodeCount));
+        }
+    }
+
+    private void addLink(BlockPos pos, Direction direction) {
+        manager.addLink(pos, direction, false);
+        linkPositions.add(pos);
+        linkDirections.add(direction);
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkSingleNetwork() {
+        manager.forceCheckStateCoherence();
+        if (manager.getNetworks().size() != 1) {
+            throw new IllegalStateException("Expected a single network, got " + manager.getNetworks().size());
+        }
+    }
+
+    @Benchmark
+    public int cutAndRelink() {
+        int link = random.nextInt(linkPositions.size());
+        BlockPos pos = linkPositions.get(link);
+        Direction direction = linkDirections.get(link);
+        manager.removeLink(pos, direction);
+        int networkCount = manager.getNetworks().size();
+        manager.addLink(pos, direction, false);
+        return networkCount;
+    }
+
+    private static class BenchmarkNetwork extends PipeNetwork {
+        BenchmarkNetwork(int id, PipeNetworkData data) {
+            super(id, data == null ? new ElectricityNetworkData() : data);
+        }
+    }
+}
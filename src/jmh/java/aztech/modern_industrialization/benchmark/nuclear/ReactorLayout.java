@@ -0,0 +1,178 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.benchmark.nuclear;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.item.Item;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.Registry;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The content of the hatches of a reactor, read from a text description:
+ *
+ * <pre>
+ * # Comments start with #.
+ * U = item modern_industrialization:uranium_fuel_rod
+ * W = fluid minecraft:water
+ *
+ * grid:
+ * UWU
+ * W.W
+ * UWU
+ * </pre>
+ *
+ * In the grid, every character is a hatch, using the legend defined above it.
+ * {@code .} is an empty item hatch, and a space or {@code _} is a position
+ * without any hatch.
+ */
+public final class ReactorLayout {
+    /**
+     * The content of a hatch: either an item, a fluid, or nothing.
+     */
+    public record Tile(@Nullable Item item, @Nullable Fluid fluid) {
+        public static final Tile EMPTY = new Tile(null, null);
+
+        public boolean isFluid() {
+            return fluid != null;
+        }
+    }
+
+    public final String name;
+    public final int sizeX, sizeY;
+    private final Tile[][] tiles;
+
+    private ReactorLayout(String name, Tile[][] tiles) {
+        this.name = name;
+        this.sizeX = tiles.length;
+        this.sizeY = tiles.length == 0 ? 0 : tiles[0].length;
+        this.tiles = tiles;
+    }
+
+    /**
+     * Return the tile at the given position, or null if there is no hatch there.
+     */
+    @Nullable
+    public Tile getTile(int x, int y) {
+        return tiles[x][y];
+    }
+
+    public static ReactorLayout load(Path path) throws IOException {
+        return parse(path.getFileName().toString(), Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Load a layout shipped with the benchmarks, in {@code /reactor_layouts}.
+     */
+    public static ReactorLayout loadBuiltin(String name) throws IOException {
+        try (InputStream stream = ReactorLayout.class.getResourceAsStream("/reactor_layouts/" + name + ".txt")) {
+            if (stream == null) {
+                throw new IOException("Unknown builtin reactor layout " + name);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            return parse(name, reader.lines().toList());
+        }
+    }
+
+    public static ReactorLayout parse(String name, List<String> lines) {
+        Map<Character, Tile> legend = new HashMap<>();
+        legend.put('.', Tile.EMPTY);
+        List<String> rows = new ArrayList<>();
+        boolean inGrid = false;
+
+        for (int i = 0; i < lines.size(); ++i) {
+            String line = lines.get(i);
+            if (inGrid) {
+                rows.add(line);
+                continue;
+            }
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            if (trimmed.equals("grid:")) {
+                inGrid = true;
+                continue;
+            }
+
+            String[] parts = trimmed.split("\\s+");
+            if (parts.length != 4 || parts[0].length() != 1 || !parts[1].equals("=")) {
+                throw error(name, i, "expected a legend entry like 'U = item modern_industrialization:uranium_fuel_rod'");
+            }
+            char key = parts[0].charAt(0);
+            if (key == ' ' || key == '_' || legend.containsKey(key)) {
+                throw error(name, i, "key '" + key + "' is reserved or already defined");
+            }
+            Identifier id = new Identifier(parts[3]);
+            int lineIndex = i;
+            legend.put(key, switch (parts[2]) {
+            case "item" -> new Tile(Registry.ITEM.getOrEmpty(id).orElseThrow(() -> error(name, lineIndex, "unknown item " + id)), null);
+            case "fluid" -> new Tile(null, Registry.FLUID.getOrEmpty(id).orElseThrow(() -> error(name, lineIndex, "unknown fluid " + id)));
+            default -> throw error(name, i, "expected 'item' or 'fluid', got " + parts[2]);
+            });
+        }
+
+        // Drop the trailing blank lines.
+        while (!rows.isEmpty() && rows.get(rows.size() - 1).isBlank()) {
+            rows.remove(rows.size() - 1);
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Reactor layout " + name + " has no grid");
+        }
+
+        int sizeX = rows.stream().mapToInt(String::length).max().getAsInt();
+        int sizeY = rows.size();
+        Tile[][] tiles = new Tile[sizeX][sizeY];
+        for (int y = 0; y < sizeY; ++y) {
+            String row = rows.get(y);
+            for (int x = 0; x < row.length(); ++x) {
+                char c = row.charAt(x);
+                if (c == ' ' || c == '_') {
+                    continue;
+                }
+                Tile tile = legend.get(c);
+                if (tile == null) {
+                    throw new IllegalArgumentException(String.format("Reactor layout %s: unknown key '%c' in grid row %d", name, c, y + 1));
+                }
+                tiles[x][y] = tile;
+            }
+        }
+        return new ReactorLayout(name, tiles);
+    }
+
+    private static IllegalArgumentException error(String name, int line, String message) {
+        return new IllegalArgumentException(String.format("Reactor layout %s, line %d: %s", name, line + 1, message));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.benchmark.nuclear;
+
+import aztech.modern_industrialization.ModernIndustrialization;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Headless nuclear reactor simulator, to evaluate layouts outside of a world.
+ * It is a command line tool:
+ *
+ * <pre>
+ * ./gradlew runReactorSimulatorServer -PreactorSimulator="[options] [layout files]"
+ * </pre>
+ *
+ * The layout files are described in {@link ReactorLayout}, the builtin layouts
+ * are simulated if there are none. Options:
+ * <ul>
+ * <li>{@code --ticks <n>}: number of ticks to simulate, one hour by
+ * default.</li>
+ * <li>{@code --seed <n>}: seed of every reactor, so that runs can be
+ * reproduced.</li>
+ * <li>{@code --batched}: use the batched neutron transport.</li>
+ * <li>{@code --parallel}: simulate the layouts in parallel.</li>
+ * </ul>
+ *
+ * <p>
+ * The items and the fluids of the layouts only exist once the mods have been
+ * initialized, so the command line is passed to
+ * {@link aztech.modern_industrialization.benchmark.MIBenchmarks} through the
+ * "modern_industrialization.reactorSimulator" property, and the game exits as
+ * soon as the simulation is done: no server or world is ever started.
+ */
+public class ReactorSimulator {
+    public static final List<String> BUILTIN_LAYOUTS = List.of("uranium_small", "uranium_large");
+
+    public static void run(String commandLine) throws IOException {
+        int ticks = 20 * 60 * 60;
+        long seed = 0;
+        boolean batched = false;
+        boolean parallel = false;
+        List<ReactorLayout> layouts = new ArrayList<>();
+
+        Iterator<String> args = Arrays.asList(commandLine.strip().split("\\s+")).iterator();
+        while (args.hasNext()) {
+            String arg = args.next();
+            switch (arg) {
+            case "" -> {
+            }
+            case "--ticks" -> ticks = Integer.parseInt(nextValue(arg, args));
+            case "--seed" -> seed = Long.parseLong(nextValue(arg, args));
+            case "--batched" -> batched = true;
+            case "--parallel" -> parallel = true;
+            default -> {
+                if (arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option " + arg);
+                }
+                layouts.add(ReactorLayout.load(Path.of(arg)));
+            }
+            }
+        }
+        if (layouts.isEmpty()) {
+            for (String name : BUILTIN_LAYOUTS) {
+                layouts.add(ReactorLayout.loadBuiltin(name));
+            }
+        }
+
+        ModernIndustrialization.LOGGER.info("Simulating {} reactor layouts for {} ticks (seed {}, {} neutrons{})", layouts.size(), ticks,
+                seed, batched ? "batched" : "walked", parallel ? ", in parallel" : "");
+        // Effectively final copies for the lambda.
+        long reactorSeed = seed;
+        boolean batchedNeutrons = batched;
+        int tickCount = ticks;
+        Stream<ReactorLayout> stream = parallel ? layouts.parallelStream() : layouts.stream();
+        // Collect before logging, so that parallel runs don't interleave their output.
+        List<SimulatedReactor.ReactorReport> reports = stream
+                .map(layout -> new SimulatedReactor(layout, reactorSeed, batchedNeutrons).run(tickCount)).toList();
+        for (SimulatedReactor.ReactorReport report : reports) {
+            ModernIndustrialization.LOGGER.info(report.toString());
+        }
+    }
+
+    private static String nextValue(String option, Iterator<String> args) {
+        if (!args.hasNext()) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args.next();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.benchmark.nuclear;
+
+import aztech.modern_industrialization.inventory.ConfigurableFluidStack;
+import aztech.modern_industrialization.machines.blockentities.hatches.NuclearHatch;
+import aztech.modern_industrialization.machines.blockentities.hatches.NuclearHatchHelper;
+import aztech.modern_industrialization.machines.components.NeutronHistoryComponent;
+import aztech.modern_industrialization.machines.components.TemperatureComponent;
+import aztech.modern_industrialization.nuclear.*;
+import java.util.List;
+import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.storage.TransferVariant;
+import net.minecraft.item.ItemStack;
+
+/**
+ * A nuclear hatch without a world, following the same rules as
+ * {@link NuclearHatch} through {@link NuclearHatchHelper}. Item hatches are
+ * refueled with a fresh item as soon as theirs is depleted, and fluid hatches
+ * have an unlimited supply of coolant and their steam is always pulled out.
+ * Neutron products are not simulated.
+ */
+class SimulatedNuclearTile implements INuclearTile {
+    private final SimulatedReactor reactor;
+    private final ReactorLayout.Tile content;
+    private final NeutronHistoryComponent neutronHistory = new NeutronHistoryComponent();
+    private final TemperatureComponent temperature;
+    private ItemStack stack = ItemStack.EMPTY;
+    private final ConfigurableFluidStack fluidInput;
+    private final List<ConfigurableFluidStack> fluidOutputs;
+
+    SimulatedNuclearTile(SimulatedReactor reactor, ReactorLayout.Tile content) {
+        this.reactor = reactor;
+        this.content = content;
+        this.temperature = NuclearHatchHelper.createTemperatureComponent(content.isFluid());
+
+        if (content.isFluid()) {
+            fluidInput = ConfigurableFluidStack.standardInputSlot(NuclearHatch.capacity);
+            fluidOutputs = List.of(ConfigurableFluidStack.standardOutputSlot(NuclearHatch.capacity),
+                    ConfigurableFluidStack.standardOutputSlot(NuclearHatch.capacity));
+            refillCoolant();
+        } else {
+            fluidInput = null;
+            fluidOutputs = null;
+            if (content.item() != null) {
+                stack = new ItemStack(content.item());
+            }
+        }
+    }
+
+    private void refillCoolant() {
+        fluidInput.setKey(FluidVariant.of(content.fluid()));
+        fluidInput.setAmount(NuclearHatch.capacity);
+        for (ConfigurableFluidStack output : fluidOutputs) {
+            output.empty();
+        }
+    }
+
+    @Override
+    public double getTemperature() {
+        return temperature.getTemperature();
+    }
+
+    @Override
+    public void setTemperature(double temp) {
+        temperature.setTemperature(temp);
+    }
+
+    @Override
+    public double getHeatTransferCoeff() {
+        return NuclearHatchHelper.getHeatTransferCoeff(getComponent());
+    }
+
+    @Override
+    public double getMeanNeutronAbsorption(NeutronType type) {
+        return neutronHistory.getAverageReceived(type);
+    }
+
+    @Override
+    public double getMeanNeutronFlux(NeutronType type) {
+        return neutronHistory.getAverageFlux(type);
+    }
+
+    @Override
+    public double getMeanNeutronGeneration() {
+        return neutronHistory.getAverageGeneration();
+    }
+
+    @Override
+    public double getMeanEuGeneration() {
+        return neutronHistory.getAverageEuGeneration();
+    }
+
+    @Override
+    public TransferVariant getVariant() {
+        return content.isFluid() ? fluidInput.getResource() : ItemVariant.of(stack);
+    }
+
+    @Override
+    public long getVariantAmount() {
+        return content.isFluid() ? fluidInput.getAmount() : stack.getCount();
+    }
+
+    @Override
+    public boolean isFluid() {
+        return content.isFluid();
+    }
+
+    @Override
+    public void putHeat(double eu) {
+        NuclearHatchHelper.putHeat(temperature, neutronHistory, eu);
+    }
+
+    @Override
+    public void absorbNeutrons(int neutronNumber, NeutronType type) {
+        NuclearHatchHelper.absorbNeutrons(neutronHistory, neutronNumber, type);
+    }
+
+    @Override
+    public void addNeutronsToFlux(int neutronNumber, NeutronType type) {
+        NuclearHatchHelper.addNeutronsToFlux(neutronHistory, neutronNumber, type);
+    }
+
+    @Override
+    public int neutronGenerationTick(INuclearGrid grid) {
+        if (content.isFluid()) {
+            return 0;
+        }
+
+        int neutronsProduced = NuclearHatchHelper.neutronGenerationTick(stack, getTemperature(), neutronHistory, grid);
+
+        if (stack.getItem() instanceof NuclearAbsorbable abs && abs.getRemainingDesintegrations(stack) == 0) {
+            reactor.onItemDepleted(abs);
+            stack = new ItemStack(content.item());
+        }
+
+        return neutronsProduced;
+    }
+
+    @Override
+    public void nuclearTick(INuclearGrid grid) {
+        neutronHistory.tick();
+
+        if (content.isFluid()) {
+            NuclearHatchHelper.steamTick(temperature, List.of(fluidInput), fluidOutputs, grid);
+            refillCoolant();
+        } else {
+            if (NuclearHatchHelper.isMelting(getComponent(), getTemperature())) {
+                reactor.onItemMelted();
+                stack = ItemStack.EMPTY;
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.benchmark.nuclear;
+
+import aztech.modern_industrialization.nuclear.*;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * A nuclear reactor simulated without a world, with {@link NuclearGridHelper}.
+ */
+public class SimulatedReactor implements INuclearGrid {
+    public final ReactorLayout layout;
+    private final SimulatedNuclearTile[][] tiles;
+    private final Random random;
+    private final boolean batchedNeutrons;
+    private final NuclearGridState state;
+
+    private long ticks = 0;
+    private double euProduction = 0;
+    private double euFuelConsumption = 0;
+    private double peakTemperature = 0;
+    private int fuelRodsDepleted = 0;
+    private int absorbersDepleted = 0;
+    private int itemsMelted = 0;
+
+    public SimulatedReactor(ReactorLayout layout, long seed, boolean batchedNeutrons) {
+        this.layout = layout;
+        this.tiles = new SimulatedNuclearTile[layout.sizeX][layout.sizeY];
+        for (int x = 0; x < layout.sizeX; ++x) {
+            for (int y = 0; y < layout.sizeY; ++y) {
+                ReactorLayout.Tile tile = layout.getTile(x, y);
+                if (tile != null) {
+                    tiles[x][y] = new SimulatedNuclearTile(this, tile);
+                }
+            }
+        }
+        this.random = new Random(seed);
+        this.batchedNeutrons = batchedNeutrons;
+        this.state = new NuclearGridState(this);
+    }
+
+    public void tick() {
+        NuclearGridHelper.simulate(state, batchedNeutrons);
+        ticks++;
+        for (SimulatedNuclearTile[] column : tiles) {
+            for (SimulatedNuclearTile tile : column) {
+                if (tile != null) {
+                    peakTemperature = Math.max(peakTemperature, tile.getTemperature());
+                }
+            }
+        }
+    }
+
+    /**
+     * Simulate the given number of ticks as fast as possible, and report the
+     * averages since the creation of the reactor.
+     */
+    public ReactorReport run(int tickCount) {
+        long start = System.nanoTime();
+        for (int i = 0; i < tickCount; ++i) {
+            tick();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new ReactorReport(layout.name, ticks, euProduction / ticks, euFuelConsumption / ticks, peakTemperature, fuelRodsDepleted,
+                absorbersDepleted, itemsMelted, tickCount / seconds);
+    }
+
+    void onItemDepleted(NuclearAbsorbable item) {
+        if (item instanceof NuclearFuel) {
+            fuelRodsDepleted++;
+        } else {
+            absorbersDepleted++;
+        }
+    }
+
+    void onItemMelted() {
+        itemsMelted++;
+    }
+
+    @Override
+    public int getSizeX() {
+        return layout.sizeX;
+    }
+
+    @Override
+    public int getSizeY() {
+        return layout.sizeY;
+    }
+
+    @Override
+    public Optional<INuclearTile> getNuclearTile(int x, int y) {
+        return Optional.ofNullable(tiles[x][y]);
+    }
+
+    @Override
+    public void registerNeutronFate(int neutronNumber, NeutronType type, NeutronFate escape) {
+    }
+
+    @Override
+    public void registerNeutronCreation(int neutronNumber, NeutronType type) {
+    }
+
+    @Override
+    public void registerEuFuelConsumption(double eu) {
+        euFuelConsumption += eu;
+    }
+
+    @Override
+    public void registerEuProduction(double eu) {
+        euProduction += eu;
+    }
+
+    @Override
+    public Random getRandom() {
+        return random;
+    }
+
+    public record ReactorReport(String layout, long ticks, double euPerTick, double fuelEuPerTick, double peakTemperature,
+            int fuelRodsDepleted, int absorbersDepleted, int itemsMelted, double ticksPerSecond) {
+
+        @Override
+        public String toString() {
+            double efficiency = fuelEuPerTick == 0 ? 0 : 100 * euPerTick / fuelEuPerTick;
+            return String.format("%s: %d ticks, %.1f EU/t produced, %.1f EU/t of fuel consumed (%.1f%%), peak temperature %.0f°C, "
+                    + "%d fuel rods and %d absorbers depleted, %d items melted, %.0f ticks/s", layout, ticks, euPerTick, fuelEuPerTick, efficiency,
+                    peakTemperature, fuelRodsDepleted, absorbersDepleted, itemsMelted, ticksPerSecond);
+        }
+    }
+}
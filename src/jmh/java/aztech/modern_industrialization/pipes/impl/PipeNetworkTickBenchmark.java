@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.pipes.impl;
+
+import aztech.modern_industrialization.api.energy.CableTier;
+import aztech.modern_industrialization.pipes.api.PipeNetwork;
+import aztech.modern_industrialization.pipes.api.PipeNetworkManager;
+import aztech.modern_industrialization.pipes.api.PipeNetworkType;
+import aztech.modern_industrialization.pipes.electricity.ElectricityNetwork;
+import aztech.modern_industrialization.pipes.electricity.ElectricityNetworkData;
+import aztech.modern_industrialization.pipes.electricity.ElectricityNetworkNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the serial and the parallel mode of
+ * {@link PipeNetworks#runParallelTick} for many independent cable networks, to
+ * check that the fork-join pool pays off above
+ * {@code PipeNetworks.MIN_PARALLEL_NETWORKS}. The cables are not connected to
+ * any block, so the commit phase doesn't need a world.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class PipeNetworkTickBenchmark {
+    private static PipeNetworkType type;
+
+    @Param({ "16", "256", "4096" })
+    public int networkCount;
+
+    @Param({ "4", "64" })
+    public int nodesPerNetwork;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private List<PipeNetwork> networks;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (type == null) {
+            type = PipeNetworkType.register(new Identifier("modern_industrialization_benchmarks", "tick_cable"),
+                    (id, data) -> new ElectricityNetwork(id, data, CableTier.LV), ElectricityNetworkNode::new, 0, false, null);
+        }
+        PipeNetworkManager manager = new PipeNetworkManager(type);
+        for (int i = 0; i < networkCount; ++i) {
+            // Leave a gap between the networks so that they are not linked.
+            for (int j = 0; j < nodesPerNetwork; ++j) {
+                BlockPos pos = new BlockPos(j, 0, 2 * i);
+                manager.addNode(new ElectricityNetworkNode(), pos, new ElectricityNetworkData());
+                if (j > 0) {
+                    manager.addLink(pos, Direction.WEST, false);
+                }
+            }
+        }
+        networks = new ArrayList<>(manager.getNetworks());
+        if (networks.size() != networkCount) {
+            throw new IllegalStateException("Expected " + networkCount + " networks, got " + networks.size());
+        }
+    }
+
+    @Benchmark
+    public void tick() {
+        PipeNetworks.runParallelTick(networks, null, parallel);
+    }
+}
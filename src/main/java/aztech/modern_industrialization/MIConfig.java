@@ -60,6 +60,14 @@ public class MIConfig implements ConfigData {
     @ConfigEntry.BoundedDiscrete(min = 0, max = 20)
     public int steamDrillWaterUseFactor = 5;
 
+    public boolean adaptiveItemPipeScheduling = false;
+    public boolean parallelPipeNetworks = false;
+    public boolean batchedNeutronSimulation = false;
+    public boolean parallelNuclearReactors = false;
+    public boolean parallelTextureGeneration = false;
+    public boolean cacheGeneratedTextures = false;
+    public boolean cacheGeneratedRecipes = false;
+
     @ConfigEntry.Gui.Excluded
     private transient static boolean registered = false;
 
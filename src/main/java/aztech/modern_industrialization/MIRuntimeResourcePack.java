@@ -28,8 +28,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import net.minecraft.resource.ResourcePack;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.resource.metadata.ResourceMetadataReader;
@@ -38,7 +39,13 @@ import net.minecraft.util.Identifier;
 public class MIRuntimeResourcePack implements ResourcePack {
     private final String name;
     private static final Set<String> NAMESPACES = Sets.newHashSet("modern_industrialization");
-    private final Map<String, byte[]> resources = new HashMap<>();
+    // Concurrent because the textures are generated on several threads.
+    private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+    /**
+     * Sorted paths of the resources, so that {@link #findResources} only visits
+     * the paths that start with the prefix instead of all of them.
+     */
+    private final NavigableSet<String> sortedPaths = new ConcurrentSkipListSet<>();
 
     public MIRuntimeResourcePack(String name) {
         this.name = name;
@@ -48,6 +55,7 @@ public class MIRuntimeResourcePack implements ResourcePack {
         if (resources.put("assets/" + path, asset) != null) {
             throw new IllegalStateException("Asset already exists in the runtime resource pack: " + path);
         }
+        sortedPaths.add("assets/" + path);
     }
 
     public void addData(String path, byte[] asset) {
@@ -58,6 +66,7 @@ public class MIRuntimeResourcePack implements ResourcePack {
         if (resources.put("data/" + path, asset) != null && !override) {
             throw new IllegalStateException("Data already exists in the runtime resource pack: " + path);
         }
+        sortedPaths.add("data/" + path);
     }
 
     @Override
@@ -76,10 +85,16 @@ public class MIRuntimeResourcePack implements ResourcePack {
     @Override
     public Collection<Identifier> findResources(ResourceType type, String namespace, String prefix, int maxDepth, Predicate<String> pathFilter) {
         String start = type.getDirectory() + "/" + namespace + "/" + prefix;
-        return this.resources.keySet().stream().filter(s -> s.startsWith(start) && pathFilter.test(s)).map(string -> {
-            String[] parts = string.split("/", 3);
-            return new Identifier(parts[1], parts[2]);
-        }).collect(Collectors.toList());
+        List<Identifier> ids = new ArrayList<>();
+        // All the strings that start with the prefix are between start (inclusive) and
+        // start + the greatest char (exclusive).
+        for (String path : sortedPaths.subSet(start, start + Character.MAX_VALUE)) {
+            if (pathFilter.test(path)) {
+                String[] parts = path.split("/", 3);
+                ids.add(new Identifier(parts[1], parts[2]));
+            }
+        }
+        return ids;
     }
 
     @Override
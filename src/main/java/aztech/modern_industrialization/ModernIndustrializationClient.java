@@ -115,6 +115,8 @@ public class ModernIndustrializationClient implements ClientModInitializer {
                 ConfigurableInventoryPacketHandlers.S2C.UPDATE_ITEM_SLOT);
         ClientPlayNetworking.registerGlobalReceiver(ConfigurableInventoryPackets.UPDATE_FLUID_SLOT,
                 ConfigurableInventoryPacketHandlers.S2C.UPDATE_FLUID_SLOT);
+        ClientPlayNetworking.registerGlobalReceiver(ConfigurableInventoryPackets.UPDATE_SLOT_AMOUNTS,
+                ConfigurableInventoryPacketHandlers.S2C.UPDATE_SLOT_AMOUNTS);
         ClientPlayNetworking.registerGlobalReceiver(MachinePackets.S2C.COMPONENT_SYNC, ClientMachinePackets.ON_COMPONENT_SYNC);
     }
 
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.debug;
+
+import aztech.modern_industrialization.inventory.MIInventory;
+import aztech.modern_industrialization.machines.components.CrafterComponent;
+import aztech.modern_industrialization.pipes.api.PipeNetwork;
+import aztech.modern_industrialization.pipes.api.PipeNetworkManager;
+import aztech.modern_industrialization.pipes.impl.PipeNetworks;
+import aztech.modern_industrialization.pipes.item.ItemNetwork;
+import com.mojang.brigadier.context.CommandContext;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.LiteralText;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Prints a few performance counters, to check that the various caches are
+ * doing their job.
+ */
+public class PerformanceStatsCommand {
+    public static int run(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        source.sendFeedback(new LiteralText("Skipped machine recipe searches: " + CrafterComponent.getSkippedRecipeSearches()), false);
+        source.sendFeedback(new LiteralText("Skipped machine auto-transfers: " + MIInventory.getSkippedAutoTransfers()), false);
+        sendItemNetworkStats(source);
+        return 1;
+    }
+
+    private static void sendItemNetworkStats(ServerCommandSource source) {
+        List<ItemNetwork> itemNetworks = new ArrayList<>();
+        long totalLookups = 0;
+        for (PipeNetworkManager manager : PipeNetworks.get(source.getWorld()).getManagers()) {
+            for (PipeNetwork network : manager.getNetworks()) {
+                if (network instanceof ItemNetwork itemNetwork) {
+                    itemNetworks.add(itemNetwork);
+                    totalLookups += itemNetwork.getLastTickApiLookups();
+                }
+            }
+        }
+        source.sendFeedback(new LiteralText("Item network API lookups last tick: " + totalLookups + " in " + itemNetworks.size() + " networks"),
+                false);
+
+        itemNetworks.sort(Comparator.comparingInt(ItemNetwork::getLastTickApiLookups).reversed());
+        for (int i = 0; i < Math.min(5, itemNetworks.size()); ++i) {
+            ItemNetwork network = itemNetworks.get(i);
+            if (network.getLastTickApiLookups() == 0) {
+                break;
+            }
+            BlockPos pos = BlockPos.fromLong(network.getNodes().keySet().iterator().nextLong());
+            source.sendFeedback(new LiteralText(String.format("  %d lookups, %d nodes, near %d %d %d", network.getLastTickApiLookups(),
+                    network.getNodes().size(), pos.getX(), pos.getY(), pos.getZ())), false);
+        }
+    }
+}
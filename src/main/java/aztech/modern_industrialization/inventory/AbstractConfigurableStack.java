@@ -32,6 +32,7 @@ import net.fabricmc.fabric.api.transfer.v1.storage.base.ResourceAmount;
 import net.fabricmc.fabric.api.transfer.v1.transaction.TransactionContext;
 import net.fabricmc.fabric.api.transfer.v1.transaction.base.SnapshotParticipant;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
 
@@ -79,6 +80,29 @@ public abstract class AbstractConfigurableStack<T, K extends TransferVariant<T>>
         this.pipesExtract = tag.getBoolean("pipesExtract");
     }
 
+    // Bits of the flags byte in the packet encoding.
+    private static final int PLAYER_LOCKED = 1, MACHINE_LOCKED = 2, PLAYER_LOCKABLE = 4, PLAYER_INSERT = 8, PLAYER_EXTRACT = 16, PIPES_INSERT = 32,
+            PIPES_EXTRACT = 64;
+
+    /**
+     * Read a stack written by {@link #writeToPacket}.
+     */
+    public AbstractConfigurableStack(PacketByteBuf buf) {
+        this.key = readVariantFromPacket(buf);
+        this.amount = buf.readVarLong();
+        if (buf.readBoolean()) {
+            this.lockedInstance = getRegistry().get(buf.readVarInt());
+        }
+        int flags = buf.readByte();
+        this.playerLocked = (flags & PLAYER_LOCKED) != 0;
+        this.machineLocked = (flags & MACHINE_LOCKED) != 0;
+        this.playerLockable = (flags & PLAYER_LOCKABLE) != 0;
+        this.playerInsert = (flags & PLAYER_INSERT) != 0;
+        this.playerExtract = (flags & PLAYER_EXTRACT) != 0;
+        this.pipesInsert = (flags & PIPES_INSERT) != 0;
+        this.pipesExtract = (flags & PIPES_EXTRACT) != 0;
+    }
+
     protected abstract T getEmptyInstance();
 
     protected abstract K getBlankVariant();
@@ -87,6 +111,8 @@ public abstract class AbstractConfigurableStack<T, K extends TransferVariant<T>>
 
     protected abstract K readVariantFromNbt(NbtCompound compound);
 
+    protected abstract K readVariantFromPacket(PacketByteBuf buf);
+
     protected abstract long getRemainingCapacityFor(K key);
 
     @Override
@@ -101,10 +127,34 @@ public abstract class AbstractConfigurableStack<T, K extends TransferVariant<T>>
         if (o == null || getClass() != o.getClass())
             return false;
         AbstractConfigurableStack<?, ?> that = (AbstractConfigurableStack<?, ?>) o;
-        return amount == that.amount && playerLocked == that.playerLocked && machineLocked == that.machineLocked
-                && playerLockable == that.playerLockable && playerInsert == that.playerInsert && playerExtract == that.playerExtract
-                && pipesInsert == that.pipesInsert && pipesExtract == that.pipesExtract && key.equals(that.key)
-                && lockedInstance == that.lockedInstance;
+        return amount == that.amount && equalsExceptAmount(that);
+    }
+
+    /**
+     * Return true if the other stack, which must be of the same class, only
+     * differs from this one by its amount.
+     */
+    protected boolean equalsExceptAmount(AbstractConfigurableStack<?, ?> that) {
+        return playerLocked == that.playerLocked && machineLocked == that.machineLocked && playerLockable == that.playerLockable
+                && playerInsert == that.playerInsert && playerExtract == that.playerExtract && pipesInsert == that.pipesInsert
+                && pipesExtract == that.pipesExtract && key.equals(that.key) && lockedInstance == that.lockedInstance;
+    }
+
+    /**
+     * Overwrite this stack with the contents of another one, without allocating a
+     * new copy.
+     */
+    protected void copyFrom(AbstractConfigurableStack<T, K> other) {
+        this.key = other.key;
+        this.amount = other.amount;
+        this.lockedInstance = other.lockedInstance;
+        this.playerLocked = other.playerLocked;
+        this.machineLocked = other.machineLocked;
+        this.playerLockable = other.playerLockable;
+        this.playerInsert = other.playerInsert;
+        this.playerExtract = other.playerExtract;
+        this.pipesInsert = other.pipesInsert;
+        this.pipesExtract = other.pipesExtract;
     }
 
     public void setAmount(long amount) {
@@ -312,4 +362,22 @@ public abstract class AbstractConfigurableStack<T, K extends TransferVariant<T>>
         tag.putBoolean("pipesExtract", pipesExtract);
         return tag;
     }
+
+    public void writeToPacket(PacketByteBuf buf) {
+        key.toPacket(buf);
+        buf.writeVarLong(amount);
+        buf.writeBoolean(lockedInstance != null);
+        if (lockedInstance != null) {
+            buf.writeVarInt(getRegistry().getRawId(lockedInstance));
+        }
+        int flags = 0;
+        flags |= playerLocked ? PLAYER_LOCKED : 0;
+        flags |= machineLocked ? MACHINE_LOCKED : 0;
+        flags |= playerLockable ? PLAYER_LOCKABLE : 0;
+        flags |= playerInsert ? PLAYER_INSERT : 0;
+        flags |= playerExtract ? PLAYER_EXTRACT : 0;
+        flags |= pipesInsert ? PIPES_INSERT : 0;
+        flags |= pipesExtract ? PIPES_EXTRACT : 0;
+        buf.writeByte(flags);
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.inventory;
+
+import aztech.modern_industrialization.util.MIBlockApiCache;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiLookup;
+import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
+import net.fabricmc.fabric.api.transfer.v1.storage.StorageUtil;
+import net.fabricmc.fabric.api.transfer.v1.storage.TransferVariant;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Automatic transfer between an {@link MIInventory} and the neighbour on one of
+ * its sides. The neighbour is looked up through a {@link MIBlockApiCache}. When
+ * nothing could be moved, the transfer is only retried once the inventory
+ * changes, or after a back-off delay since the neighbour may change on its own.
+ */
+final class AutoTransfer<T, K extends TransferVariant<T>> {
+    private static final int MIN_BACKOFF = 2;
+    private static final int MAX_BACKOFF = 64;
+    static long skippedTransfers = 0;
+
+    private final BlockApiLookup<Storage<K>, Direction> lookup;
+    private final Direction direction;
+    private final boolean extract;
+    private final UnaryOperator<Storage<K>> targetWrapper;
+
+    private MIBlockApiCache<Storage<K>, Direction> cache = null;
+    private World cacheWorld = null;
+    private BlockPos cachePos = null;
+
+    // 0 if the last transfer succeeded.
+    private int backoff = 0;
+    private long retryTick;
+    // Contents of the inventory when the last transfer failed.
+    private long[] failedAmounts = new long[0];
+    private Object[] failedKeys = new Object[0];
+
+    AutoTransfer(BlockApiLookup<Storage<K>, Direction> lookup, Direction direction, boolean extract, UnaryOperator<Storage<K>> targetWrapper) {
+        this.lookup = lookup;
+        this.direction = direction;
+        this.extract = extract;
+        this.targetWrapper = targetWrapper;
+    }
+
+    void tick(World world, BlockPos pos, MIStorage<T, K, ?> storage) {
+        long time = world.getTime();
+        if (backoff > 0 && time < retryTick && !hasChanged(storage.stacks)) {
+            skippedTransfers++;
+            return;
+        }
+
+        Storage<K> target = findTarget(world, pos);
+        long moved = 0;
+        if (target != null) {
+            if (extract) {
+                moved = StorageUtil.move(storage, targetWrapper.apply(target), k -> true, Long.MAX_VALUE, null);
+            } else {
+                moved = StorageUtil.move(target, storage, k -> true, Long.MAX_VALUE, null);
+            }
+        }
+
+        if (moved > 0) {
+            backoff = 0;
+        } else {
+            backoff = backoff == 0 ? MIN_BACKOFF : Math.min(MAX_BACKOFF, backoff * 2);
+            retryTick = time + backoff;
+            saveContents(storage.stacks);
+        }
+    }
+
+    @Nullable
+    private Storage<K> findTarget(World world, BlockPos pos) {
+        // The inventory doesn't know its position, so check that it didn't change.
+        if (cache == null || cacheWorld != world || !cachePos.equals(pos)) {
+            cache = MIBlockApiCache.create(lookup, (ServerWorld) world, pos.offset(direction));
+            cacheWorld = world;
+            cachePos = pos.toImmutable();
+        }
+        return cache.find(direction.getOpposite());
+    }
+
+    private boolean hasChanged(List<? extends AbstractConfigurableStack<T, K>> stacks) {
+        if (stacks.size() != failedAmounts.length) {
+            return true;
+        }
+        for (int i = 0; i < failedAmounts.length; ++i) {
+            AbstractConfigurableStack<T, K> stack = stacks.get(i);
+            if (stack.getAmount() != failedAmounts[i] || !stack.getResource().equals(failedKeys[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void saveContents(List<? extends AbstractConfigurableStack<T, K>> stacks) {
+        if (stacks.size() != failedAmounts.length) {
+            failedAmounts = new long[stacks.size()];
+            failedKeys = new Object[stacks.size()];
+        }
+        for (int i = 0; i < failedAmounts.length; ++i) {
+            failedAmounts[i] = stacks.get(i).getAmount();
+            failedKeys[i] = stacks.get(i).getResource();
+        }
+    }
+}
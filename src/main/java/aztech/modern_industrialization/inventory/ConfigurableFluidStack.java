@@ -36,6 +36,7 @@ import net.minecraft.fluid.Fluid;
 import net.minecraft.fluid.Fluids;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.screen.slot.Slot;
 import net.minecraft.util.registry.Registry;
 
@@ -94,16 +95,20 @@ public class ConfigurableFluidStack extends AbstractConfigurableStack<Fluid, Flu
         this.capacity = compound.getLong("capacity");
     }
 
+    public ConfigurableFluidStack(PacketByteBuf buf) {
+        super(buf);
+        this.capacity = buf.readVarLong();
+    }
+
     @Override
-    public boolean equals(Object o) {
-        if (this == o)
-            return true;
-        if (o == null || getClass() != o.getClass())
-            return false;
-        if (!super.equals(o))
-            return false;
-        ConfigurableFluidStack that = (ConfigurableFluidStack) o;
-        return capacity == that.capacity;
+    protected boolean equalsExceptAmount(AbstractConfigurableStack<?, ?> that) {
+        return super.equalsExceptAmount(that) && capacity == ((ConfigurableFluidStack) that).capacity;
+    }
+
+    @Override
+    protected void copyFrom(AbstractConfigurableStack<Fluid, FluidVariant> other) {
+        super.copyFrom(other);
+        this.capacity = ((ConfigurableFluidStack) other).capacity;
     }
 
     /**
@@ -137,6 +142,11 @@ public class ConfigurableFluidStack extends AbstractConfigurableStack<Fluid, Flu
         return FluidVariant.fromNbt(compound);
     }
 
+    @Override
+    protected FluidVariant readVariantFromPacket(PacketByteBuf buf) {
+        return FluidVariant.fromPacket(buf);
+    }
+
     public long getCapacity() {
         return capacity;
     }
@@ -171,6 +181,12 @@ public class ConfigurableFluidStack extends AbstractConfigurableStack<Fluid, Flu
         return tag;
     }
 
+    @Override
+    public void writeToPacket(PacketByteBuf buf) {
+        super.writeToPacket(buf);
+        buf.writeVarLong(capacity);
+    }
+
     public class ConfigurableFluidSlot extends Slot implements ReiDraggable {
         private final Runnable markDirty;
 
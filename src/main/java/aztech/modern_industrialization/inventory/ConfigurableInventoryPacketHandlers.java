@@ -27,28 +27,28 @@ import aztech.modern_industrialization.api.ReiDraggable;
 import aztech.modern_industrialization.inventory.ConfigurableFluidStack.ConfigurableFluidSlot;
 import aztech.modern_industrialization.inventory.ConfigurableItemStack.ConfigurableItemSlot;
 import aztech.modern_industrialization.util.Simulation;
+import java.util.List;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
 import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
-import net.minecraft.nbt.NbtCompound;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.screen.slot.Slot;
 
 public class ConfigurableInventoryPacketHandlers {
     public static class S2C {
-        // sync id, slot id, slot tag
+        // sync id, stack id, stack
         public static final ClientPlayNetworking.PlayChannelHandler UPDATE_ITEM_SLOT = (mc, handler, buf, sender) -> {
             int syncId = buf.readInt();
-            int stackId = buf.readInt();
-            NbtCompound tag = buf.readNbt();
+            int stackId = buf.readVarInt();
+            ConfigurableItemStack newStack = new ConfigurableItemStack(buf);
             mc.execute(() -> {
                 ScreenHandler sh = mc.player.currentScreenHandler;
                 if (sh.syncId == syncId) {
                     ConfigurableScreenHandler csh = (ConfigurableScreenHandler) sh;
                     ConfigurableItemStack oldStack = csh.inventory.getItemStacks().get(stackId);
                     // update stack
-                    ConfigurableItemStack newStack = new ConfigurableItemStack(tag);
                     csh.inventory.getItemStacks().set(stackId, newStack);
                     // update slot
                     for (int i = 0; i < csh.slots.size(); ++i) {
@@ -64,18 +64,17 @@ public class ConfigurableInventoryPacketHandlers {
                 }
             });
         };
-        // sync id, slot id, slot tag
+        // sync id, stack id, stack
         public static final ClientPlayNetworking.PlayChannelHandler UPDATE_FLUID_SLOT = (mc, handler, buf, sender) -> {
             int syncId = buf.readInt();
-            int stackId = buf.readInt();
-            NbtCompound tag = buf.readNbt();
+            int stackId = buf.readVarInt();
+            ConfigurableFluidStack newStack = new ConfigurableFluidStack(buf);
             mc.execute(() -> {
                 ScreenHandler sh = mc.player.currentScreenHandler;
                 if (sh.syncId == syncId) {
                     ConfigurableScreenHandler csh = (ConfigurableScreenHandler) sh;
                     ConfigurableFluidStack oldStack = csh.inventory.getFluidStacks().get(stackId);
                     // update stack
-                    ConfigurableFluidStack newStack = new ConfigurableFluidStack(tag);
                     csh.inventory.getFluidStacks().set(stackId, newStack);
                     // update slot
                     for (int i = 0; i < csh.slots.size(); ++i) {
@@ -91,6 +90,41 @@ public class ConfigurableInventoryPacketHandlers {
                 }
             });
         };
+
+        // sync id, then for items and fluids: number of stacks, (stack id, amount)
+        // for each stack
+        public static final ClientPlayNetworking.PlayChannelHandler UPDATE_SLOT_AMOUNTS = (mc, handler, buf, sender) -> {
+            int syncId = buf.readInt();
+            long[] itemAmounts = readAmounts(buf);
+            long[] fluidAmounts = readAmounts(buf);
+            mc.execute(() -> {
+                ScreenHandler sh = mc.player.currentScreenHandler;
+                if (sh.syncId == syncId) {
+                    ConfigurableScreenHandler csh = (ConfigurableScreenHandler) sh;
+                    applyAmounts(itemAmounts, csh.inventory.getItemStacks());
+                    applyAmounts(fluidAmounts, csh.inventory.getFluidStacks());
+                }
+            });
+        };
+
+        /**
+         * Read the amounts, as pairs of stack id and amount.
+         */
+        private static long[] readAmounts(PacketByteBuf buf) {
+            long[] amounts = new long[2 * buf.readVarInt()];
+            for (int i = 0; i < amounts.length; i += 2) {
+                amounts[i] = buf.readVarInt();
+                amounts[i + 1] = buf.readVarLong();
+            }
+            return amounts;
+        }
+
+        private static void applyAmounts(long[] amounts, List<? extends AbstractConfigurableStack<?, ?>> stacks) {
+            for (int i = 0; i < amounts.length; i += 2) {
+                // Only the amount changed, so the key is already correct.
+                stacks.get((int) amounts[i]).setAmount(amounts[i + 1]);
+            }
+        }
     }
 
     public static class C2S {
@@ -26,9 +26,18 @@ package aztech.modern_industrialization.inventory;
 import aztech.modern_industrialization.MIIdentifier;
 import net.minecraft.util.Identifier;
 
+/**
+ * Packets of the configurable inventories. The server syncs the stacks of an
+ * open screen in two ways: a whole stack is sent with
+ * {@link #UPDATE_ITEM_SLOT} or {@link #UPDATE_FLUID_SLOT} when its resource,
+ * its locks or its configuration change, and the amounts of all the stacks
+ * where only the amount changed are batched in a single
+ * {@link #UPDATE_SLOT_AMOUNTS} packet per tick.
+ */
 public class ConfigurableInventoryPackets {
     public static final Identifier UPDATE_ITEM_SLOT = new MIIdentifier("update_item_slot");
     public static final Identifier UPDATE_FLUID_SLOT = new MIIdentifier("update_fluid_slot");
+    public static final Identifier UPDATE_SLOT_AMOUNTS = new MIIdentifier("update_slot_amounts");
     public static final Identifier SET_LOCKING_MODE = new MIIdentifier("set_locking_mode");
     public static final Identifier DO_SLOT_DRAGGING = new MIIdentifier("do_slot_dragging");
     public static final Identifier ADJUST_SLOT_CAPACITY = new MIIdentifier("adjust_slot_capacity");
@@ -36,6 +36,7 @@ import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.screen.slot.Slot;
 import net.minecraft.util.registry.Registry;
 
@@ -53,6 +54,11 @@ public class ConfigurableItemStack extends AbstractConfigurableStack<Item, ItemV
         this.adjustedCapacity = compound.getInt("adjCap");
     }
 
+    public ConfigurableItemStack(PacketByteBuf buf) {
+        super(buf);
+        this.adjustedCapacity = buf.readVarInt();
+    }
+
     @Override
     public NbtCompound toNbt() {
         NbtCompound nbt = super.toNbt();
@@ -60,6 +66,12 @@ public class ConfigurableItemStack extends AbstractConfigurableStack<Item, ItemV
         return nbt;
     }
 
+    @Override
+    public void writeToPacket(PacketByteBuf buf) {
+        super.writeToPacket(buf);
+        buf.writeVarInt(adjustedCapacity);
+    }
+
     public static ConfigurableItemStack standardInputSlot() {
         ConfigurableItemStack stack = new ConfigurableItemStack();
         stack.playerInsert = true;
@@ -88,6 +100,17 @@ public class ConfigurableItemStack extends AbstractConfigurableStack<Item, ItemV
         this.adjustedCapacity = other.adjustedCapacity;
     }
 
+    @Override
+    protected boolean equalsExceptAmount(AbstractConfigurableStack<?, ?> that) {
+        return super.equalsExceptAmount(that) && adjustedCapacity == ((ConfigurableItemStack) that).adjustedCapacity;
+    }
+
+    @Override
+    protected void copyFrom(AbstractConfigurableStack<Item, ItemVariant> other) {
+        super.copyFrom(other);
+        this.adjustedCapacity = ((ConfigurableItemStack) other).adjustedCapacity;
+    }
+
     @Override
     protected ItemVariant getBlankVariant() {
         return ItemVariant.blank();
@@ -108,6 +131,11 @@ public class ConfigurableItemStack extends AbstractConfigurableStack<Item, ItemV
         return ItemVariant.fromNbt(compound);
     }
 
+    @Override
+    protected ItemVariant readVariantFromPacket(PacketByteBuf buf) {
+        return ItemVariant.fromPacket(buf);
+    }
+
     @Override
     public long getCapacity() {
         return key.isBlank() ? adjustedCapacity : Math.min(adjustedCapacity, key.getItem().getMaxCount());
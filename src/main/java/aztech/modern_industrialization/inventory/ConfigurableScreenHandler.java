@@ -24,6 +24,8 @@
 package aztech.modern_industrialization.inventory;
 
 import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import java.util.List;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
 import net.fabricmc.fabric.api.transfer.v1.context.ContainerItemContext;
@@ -53,6 +55,9 @@ public abstract class ConfigurableScreenHandler extends ScreenHandler {
     protected MIInventory inventory;
     private List<ConfigurableItemStack> trackedItems;
     private List<ConfigurableFluidStack> trackedFluids;
+    // Scratch lists of the stacks where only the amount changed.
+    private final IntList changedItemAmounts = new IntArrayList();
+    private final IntList changedFluidAmounts = new IntArrayList();
 
     protected ConfigurableScreenHandler(ScreenHandlerType<?> type, int syncId, PlayerInventory playerInventory, MIInventory inventory) {
         super(type, syncId);
@@ -67,32 +72,63 @@ public abstract class ConfigurableScreenHandler extends ScreenHandler {
 
     @Override
     public void sendContentUpdates() {
-        if (playerInventory.player instanceof ServerPlayerEntity) {
-            ServerPlayerEntity player = (ServerPlayerEntity) playerInventory.player;
+        if (playerInventory.player instanceof ServerPlayerEntity player) {
+            List<ConfigurableItemStack> itemStacks = inventory.getItemStacks();
+            List<ConfigurableFluidStack> fluidStacks = inventory.getFluidStacks();
+            changedItemAmounts.clear();
+            changedFluidAmounts.clear();
+
             for (int i = 0; i < trackedItems.size(); i++) {
-                if (!trackedItems.get(i).equals(inventory.getItemStacks().get(i))) {
-                    trackedItems.set(i, new ConfigurableItemStack(inventory.getItemStacks().get(i)));
+                ConfigurableItemStack tracked = trackedItems.get(i);
+                ConfigurableItemStack stack = itemStacks.get(i);
+                if (!tracked.equalsExceptAmount(stack)) {
+                    tracked.copyFrom(stack);
                     PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
                     buf.writeInt(syncId);
-                    buf.writeInt(i);
-                    buf.writeNbt(trackedItems.get(i).toNbt());
+                    buf.writeVarInt(i);
+                    tracked.writeToPacket(buf);
                     ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, ConfigurableInventoryPackets.UPDATE_ITEM_SLOT, buf);
+                } else if (tracked.amount != stack.amount) {
+                    tracked.amount = stack.amount;
+                    changedItemAmounts.add(i);
                 }
             }
             for (int i = 0; i < trackedFluids.size(); i++) {
-                if (!trackedFluids.get(i).equals(inventory.getFluidStacks().get(i))) {
-                    trackedFluids.set(i, new ConfigurableFluidStack(inventory.getFluidStacks().get(i)));
+                ConfigurableFluidStack tracked = trackedFluids.get(i);
+                ConfigurableFluidStack stack = fluidStacks.get(i);
+                if (!tracked.equalsExceptAmount(stack)) {
+                    tracked.copyFrom(stack);
                     PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
                     buf.writeInt(syncId);
-                    buf.writeInt(i);
-                    buf.writeNbt(trackedFluids.get(i).toNbt());
+                    buf.writeVarInt(i);
+                    tracked.writeToPacket(buf);
                     ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, ConfigurableInventoryPackets.UPDATE_FLUID_SLOT, buf);
+                } else if (tracked.amount != stack.amount) {
+                    tracked.amount = stack.amount;
+                    changedFluidAmounts.add(i);
                 }
             }
+
+            if (!changedItemAmounts.isEmpty() || !changedFluidAmounts.isEmpty()) {
+                PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+                buf.writeInt(syncId);
+                writeAmounts(buf, changedItemAmounts, trackedItems);
+                writeAmounts(buf, changedFluidAmounts, trackedFluids);
+                ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, ConfigurableInventoryPackets.UPDATE_SLOT_AMOUNTS, buf);
+            }
         }
         super.sendContentUpdates();
     }
 
+    private static void writeAmounts(PacketByteBuf buf, IntList changedStacks, List<? extends AbstractConfigurableStack<?, ?>> trackedStacks) {
+        buf.writeVarInt(changedStacks.size());
+        for (int i = 0; i < changedStacks.size(); ++i) {
+            int stackId = changedStacks.getInt(i);
+            buf.writeVarInt(stackId);
+            buf.writeVarLong(trackedStacks.get(stackId).amount);
+        }
+    }
+
     @Override
     public void onSlotClick(int i, int j, SlotActionType actionType, PlayerEntity playerEntity) {
         if (i >= 0) {
@@ -29,12 +29,12 @@ import aztech.modern_industrialization.util.StorageUtil2;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.UnaryOperator;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiLookup;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidStorage;
-import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
 import net.fabricmc.fabric.api.transfer.v1.item.ItemStorage;
-import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
-import net.fabricmc.fabric.api.transfer.v1.storage.StorageUtil;
+import net.fabricmc.fabric.api.transfer.v1.storage.TransferVariant;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
@@ -47,6 +47,13 @@ public final class MIInventory implements IComponent {
     public final MIFluidStorage fluidStorage;
     public final SlotPositions itemPositions;
     public final SlotPositions fluidPositions;
+    // Copies of the stacks at the last pollDirty() call, created lazily.
+    private List<ConfigurableItemStack> savedItemStacks = null;
+    private List<ConfigurableFluidStack> savedFluidStacks = null;
+
+    private static final int ITEM_EXTRACT = 0, FLUID_EXTRACT = 1, ITEM_INSERT = 2, FLUID_INSERT = 3;
+    // Cached auto-insert and auto-extract state, indexed by operation and direction, created lazily.
+    private final AutoTransfer<?, ?>[] autoTransfers = new AutoTransfer<?, ?>[4 * 6];
 
     /**
      * Build a new MI inventory. If you need to access the stacks, make sure to
@@ -78,36 +85,37 @@ public final class MIInventory implements IComponent {
     }
 
     public void autoExtractItems(World world, BlockPos pos, Direction direction) {
-        Storage<ItemVariant> target = ItemStorage.SIDED.find(world, pos.offset(direction), direction.getOpposite());
-        target = StorageUtil2.wrapInventory(target);
-
-        if (target != null) {
-            StorageUtil.move(itemStorage, target, k -> true, Long.MAX_VALUE, null);
-        }
+        getAutoTransfer(ITEM_EXTRACT, direction, ItemStorage.SIDED, true, StorageUtil2::wrapInventory).tick(world, pos, itemStorage);
     }
 
     public void autoExtractFluids(World world, BlockPos pos, Direction direction) {
-        Storage<FluidVariant> target = FluidStorage.SIDED.find(world, pos.offset(direction), direction.getOpposite());
-
-        if (target != null) {
-            StorageUtil.move(fluidStorage, target, k -> true, Long.MAX_VALUE, null);
-        }
+        getAutoTransfer(FLUID_EXTRACT, direction, FluidStorage.SIDED, true, UnaryOperator.identity()).tick(world, pos, fluidStorage);
     }
 
     public void autoInsertItems(World world, BlockPos pos, Direction direction) {
-        Storage<ItemVariant> target = ItemStorage.SIDED.find(world, pos.offset(direction), direction.getOpposite());
-
-        if (target != null) {
-            StorageUtil.move(target, itemStorage, k -> true, Long.MAX_VALUE, null);
-        }
+        getAutoTransfer(ITEM_INSERT, direction, ItemStorage.SIDED, false, UnaryOperator.identity()).tick(world, pos, itemStorage);
     }
 
     public void autoInsertFluids(World world, BlockPos pos, Direction direction) {
-        Storage<FluidVariant> target = FluidStorage.SIDED.find(world, pos.offset(direction), direction.getOpposite());
+        getAutoTransfer(FLUID_INSERT, direction, FluidStorage.SIDED, false, UnaryOperator.identity()).tick(world, pos, fluidStorage);
+    }
 
-        if (target != null) {
-            StorageUtil.move(target, fluidStorage, k -> true, Long.MAX_VALUE, null);
+    @SuppressWarnings("unchecked")
+    private <T, K extends TransferVariant<T>> AutoTransfer<T, K> getAutoTransfer(int operation, Direction direction,
+            BlockApiLookup<Storage<K>, Direction> lookup, boolean extract, UnaryOperator<Storage<K>> targetWrapper) {
+        int index = operation * 6 + direction.getId();
+        if (autoTransfers[index] == null) {
+            autoTransfers[index] = new AutoTransfer<>(lookup, direction, extract, targetWrapper);
         }
+        return (AutoTransfer<T, K>) autoTransfers[index];
+    }
+
+    /**
+     * @return The number of auto-insert and auto-extract attempts that were
+     *         skipped because the previous attempt failed.
+     */
+    public static long getSkippedAutoTransfers() {
+        return AutoTransfer.skippedTransfers;
     }
 
     public void writeNbt(NbtCompound tag) {
@@ -126,6 +134,34 @@ public final class MIInventory implements IComponent {
         SlotConfig.readSlotList(fluidStorage.stacks, newFluidStacks);
     }
 
+    @Override
+    public boolean pollDirty() {
+        if (savedItemStacks == null) {
+            savedItemStacks = ConfigurableItemStack.copyList(itemStorage.stacks);
+            savedFluidStacks = ConfigurableFluidStack.copyList(fluidStorage.stacks);
+            return true;
+        }
+
+        boolean dirty = false;
+        for (int i = 0; i < savedItemStacks.size(); ++i) {
+            ConfigurableItemStack stack = itemStorage.stacks.get(i);
+            ConfigurableItemStack saved = savedItemStacks.get(i);
+            if (!stack.equals(saved)) {
+                saved.copyFrom(stack);
+                dirty = true;
+            }
+        }
+        for (int i = 0; i < savedFluidStacks.size(); ++i) {
+            ConfigurableFluidStack stack = fluidStorage.stacks.get(i);
+            ConfigurableFluidStack saved = savedFluidStacks.get(i);
+            if (!stack.equals(saved)) {
+                saved.copyFrom(stack);
+                dirty = true;
+            }
+        }
+        return dirty;
+    }
+
     static {
         EMPTY = new MIInventory(Collections.emptyList(), Collections.emptyList(), SlotPositions.empty(), SlotPositions.empty());
     }
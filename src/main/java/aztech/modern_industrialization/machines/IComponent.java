@@ -38,11 +38,25 @@ public interface IComponent {
         readNbt(tag);
     }
 
+    /**
+     * Return true if the state saved by {@link #writeNbt} may have changed since
+     * the last call, and reset the dirty state. Components that don't track their
+     * changes are always considered dirty.
+     */
+    default boolean pollDirty() {
+        return true;
+    }
+
     interface ClientOnly extends IComponent {
         @Override
         default void writeNbt(NbtCompound tag) {
         }
 
+        @Override
+        default boolean pollDirty() {
+            return false;
+        }
+
         @Override
         default void readNbt(NbtCompound tag) {
         }
@@ -85,6 +85,22 @@ public abstract class MachineBlockEntity extends FastBlockEntity
         Collections.addAll(icomponents, components);
     }
 
+    /**
+     * Mark this block entity dirty only if one of its components changed since the
+     * last call, so that idle machines don't trigger a save and comparator updates
+     * every tick.
+     */
+    protected final void markDirtyIfChanged() {
+        boolean dirty = false;
+        for (IComponent component : icomponents) {
+            // Poll every component, so that all of them reset their dirty state.
+            dirty |= component.pollDirty();
+        }
+        if (dirty) {
+            markDirty();
+        }
+    }
+
     /**
      * @return The inventory that will be synced with the client.
      */
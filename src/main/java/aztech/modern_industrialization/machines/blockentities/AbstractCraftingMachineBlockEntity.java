@@ -97,7 +97,7 @@ public abstract class AbstractCraftingMachineBlockEntity extends MachineBlockEnt
             if (orientation.extractFluids) {
                 inventory.inventory.autoExtractFluids(world, pos, orientation.outputDirection);
             }
-            markDirty();
+            markDirtyIfChanged();
         }
     }
 
@@ -106,6 +106,7 @@ public abstract class AbstractStorageMachineBlockEntity extends MachineBlockEnti
     @Override
     public void tick() {
         EnergyHelper.autoOuput(this, orientation, to, energy);
+        markDirtyIfChanged();
     }
 
     public static void registerEnergyApi(BlockEntityType<?> bet) {
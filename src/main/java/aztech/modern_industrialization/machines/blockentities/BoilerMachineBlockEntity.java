@@ -137,6 +137,6 @@ public class BoilerMachineBlockEntity extends MachineBlockEntity implements Tick
 
         isActiveComponent.updateActive(fuelBurning.isBurning(), this);
 
-        markDirty();
+        markDirtyIfChanged();
     }
 }
@@ -143,7 +143,7 @@ public class EnergyFromFluidMachineBlockEntity extends MachineBlockEntity implem
 
         EnergyHelper.autoOuput(this, orientation, outputTier, energy);
 
-        markDirty();
+        markDirtyIfChanged();
     }
 
     public static void registerEnergyApi(BlockEntityType<?> bet) {
@@ -29,14 +29,12 @@ import aztech.modern_industrialization.inventory.*;
 import aztech.modern_industrialization.machines.BEP;
 import aztech.modern_industrialization.machines.components.NeutronHistoryComponent;
 import aztech.modern_industrialization.machines.components.OrientationComponent;
-import aztech.modern_industrialization.machines.components.SteamHeaterComponent;
 import aztech.modern_industrialization.machines.components.TemperatureComponent;
 import aztech.modern_industrialization.machines.components.sync.TemperatureBar;
 import aztech.modern_industrialization.machines.gui.MachineGuiParameters;
 import aztech.modern_industrialization.machines.multiblocks.HatchBlockEntity;
 import aztech.modern_industrialization.machines.multiblocks.HatchType;
 import aztech.modern_industrialization.nuclear.*;
-import com.google.common.base.Preconditions;
 import java.util.*;
 import java.util.stream.Collectors;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidStorage;
@@ -70,7 +68,6 @@ public class NuclearHatch extends HatchBlockEntity implements INuclearTile {
             itemStack.add(ConfigurableItemStack.standardOutputSlot());
             itemStack.add(ConfigurableItemStack.standardOutputSlot());
             inventory = new MIInventory(itemStack, Collections.emptyList(), slotPos, SlotPositions.empty());
-            nuclearReactorComponent = new TemperatureComponent(NuclearConstant.MAX_TEMPERATURE);
         } else {
 
             List<ConfigurableFluidStack> fluidStack = new ArrayList<>();
@@ -78,10 +75,9 @@ public class NuclearHatch extends HatchBlockEntity implements INuclearTile {
             fluidStack.add(ConfigurableFluidStack.standardOutputSlot(capacity));
             fluidStack.add(ConfigurableFluidStack.standardOutputSlot(capacity));
             inventory = new MIInventory(Collections.emptyList(), fluidStack, SlotPositions.empty(), slotPos);
-            nuclearReactorComponent = new SteamHeaterComponent(NuclearConstant.MAX_TEMPERATURE, NuclearConstant.MAX_HATCH_EU_PRODUCTION,
-                    NuclearConstant.EU_PER_DEGREE, true, true);
         }
 
+        nuclearReactorComponent = NuclearHatchHelper.createTemperatureComponent(isFluid);
         neutronHistory = new NeutronHistoryComponent();
         registerComponents(inventory, nuclearReactorComponent, neutronHistory);
 
@@ -134,7 +130,7 @@ public class NuclearHatch extends HatchBlockEntity implements INuclearTile {
 
     @Override
     public double getHeatTransferCoeff() {
-        return NuclearConstant.BASE_HEAT_CONDUCTION + (getComponent().isPresent() ? getComponent().get().getHeatConduction() : 0);
+        return NuclearHatchHelper.getHeatTransferCoeff(getComponent());
     }
 
     @Override
@@ -187,30 +183,20 @@ public class NuclearHatch extends HatchBlockEntity implements INuclearTile {
 
     @Override
     public void putHeat(double eu) {
-        Preconditions.checkArgument(eu >= 0);
-        setTemperature(getTemperature() + eu / NuclearConstant.EU_PER_DEGREE);
-        neutronHistory.addValue("euGeneration", (int) eu);
+        NuclearHatchHelper.putHeat(nuclearReactorComponent, neutronHistory, eu);
     }
 
     @Override
     public int neutronGenerationTick(INuclearGrid grid) {
-        double meanNeutron = getMeanNeutronAbsorption(NeutronType.BOTH) + NuclearConstant.BASE_NEUTRON;
-        int neutronsProduced = 0;
-
         if (!isFluid) {
             ItemVariant itemVariant = (ItemVariant) this.getVariant();
+            boolean absorbable = !itemVariant.isBlank() && itemVariant.getItem() instanceof NuclearAbsorbable;
+            ItemStack stack = absorbable ? itemVariant.toStack((int) getVariantAmount()) : ItemStack.EMPTY;
 
-            if (!itemVariant.isBlank() && itemVariant.getItem() instanceof NuclearAbsorbable abs) {
-
-                ItemStack stack = itemVariant.toStack((int) getVariantAmount());
-
-                Random rand = this.world.getRandom();
+            int neutronsProduced = NuclearHatchHelper.neutronGenerationTick(stack, getTemperature(), neutronHistory, grid);
 
-                if (abs instanceof NuclearFuel fuel) {
-                    neutronsProduced = fuel.simulateDesintegration(meanNeutron, stack, this.nuclearReactorComponent.getTemperature(), rand, grid);
-                } else {
-                    abs.simulateAbsorption(meanNeutron, stack, rand);
-                }
+            if (absorbable) {
+                NuclearAbsorbable abs = (NuclearAbsorbable) itemVariant.getItem();
 
                 if (abs.getRemainingDesintegrations(stack) == 0) {
                     try (Transaction tx = Transaction.openOuter()) {
@@ -238,7 +224,6 @@ public class NuclearHatch extends HatchBlockEntity implements INuclearTile {
 
             }
 
-            neutronHistory.addValue("neutronGeneration", neutronsProduced);
             return neutronsProduced;
         } else {
             return 0;
@@ -250,13 +235,17 @@ public class NuclearHatch extends HatchBlockEntity implements INuclearTile {
     }
 
     public void fluidNeutronProductTick(int neutron, boolean simul) {
+        fluidNeutronProductTick(neutron, simul, this.getWorld().getRandom());
+    }
+
+    private void fluidNeutronProductTick(int neutron, boolean simul, Random rand) {
         if (isFluid) {
             Optional<INuclearComponent> maybeComponent = this.getComponent();
             if (maybeComponent.isPresent()) {
 
                 INuclearComponent<FluidVariant> component = maybeComponent.get();
 
-                int actualRecipe = randIntFromDouble(neutron * component.getNeutronProductProbability(), this.getWorld().getRandom());
+                int actualRecipe = randIntFromDouble(neutron * component.getNeutronProductProbability(), rand);
 
                 if (simul) {
                     actualRecipe = neutron;
@@ -279,45 +268,30 @@ public class NuclearHatch extends HatchBlockEntity implements INuclearTile {
     }
 
     private void checkComponentMaxTemperature() {
-        if (!isFluid) {
-            this.getComponent().ifPresent((component) -> {
-                if (component.getMaxTemperature() < this.getTemperature()) {
-                    this.inventory.getItemStacks().get(0).empty();
-                }
-            });
+        if (!isFluid && NuclearHatchHelper.isMelting(getComponent(), getTemperature())) {
+            this.inventory.getItemStacks().get(0).empty();
         }
     }
 
     public void nuclearTick(INuclearGrid grid) {
         neutronHistory.tick();
-        fluidNeutronProductTick(randIntFromDouble(neutronHistory.getAverageReceived(NeutronType.BOTH), this.getWorld().getRandom()), false);
+        Random rand = grid.getRandom();
+        fluidNeutronProductTick(randIntFromDouble(neutronHistory.getAverageReceived(NeutronType.BOTH), rand), false, rand);
 
         if (isFluid) {
-            double euProduced = ((SteamHeaterComponent) nuclearReactorComponent).tick(Collections.singletonList(inventory.getFluidStacks().get(0)),
-                    inventory.getFluidStacks().stream().filter(AbstractConfigurableStack::canPipesExtract).collect(Collectors.toList()));
-            grid.registerEuProduction(euProduced);
+            NuclearHatchHelper.steamTick(nuclearReactorComponent, Collections.singletonList(inventory.getFluidStacks().get(0)),
+                    inventory.getFluidStacks().stream().filter(AbstractConfigurableStack::canPipesExtract).collect(Collectors.toList()), grid);
         }
 
         checkComponentMaxTemperature();
     }
 
     public void absorbNeutrons(int neutronNumber, NeutronType type) {
-        Preconditions.checkArgument(type != NeutronType.BOTH);
-        if (type == NeutronType.FAST) {
-            neutronHistory.addValue("fastNeutronReceived", neutronNumber);
-        } else {
-            neutronHistory.addValue("thermalNeutronReceived", neutronNumber);
-        }
-
+        NuclearHatchHelper.absorbNeutrons(neutronHistory, neutronNumber, type);
     }
 
     public void addNeutronsToFlux(int neutronNumber, NeutronType type) {
-        Preconditions.checkArgument(type != NeutronType.BOTH);
-        if (type == NeutronType.FAST) {
-            neutronHistory.addValue("fastNeutronFlux", neutronNumber);
-        } else {
-            neutronHistory.addValue("thermalNeutronFlux", neutronNumber);
-        }
+        NuclearHatchHelper.addNeutronsToFlux(neutronHistory, neutronNumber, type);
     }
 
     public static void registerItemApi(BlockEntityType<?> bet) {
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.blockentities.hatches;
+
+import aztech.modern_industrialization.inventory.ConfigurableFluidStack;
+import aztech.modern_industrialization.machines.components.NeutronHistoryComponent;
+import aztech.modern_industrialization.machines.components.SteamHeaterComponent;
+import aztech.modern_industrialization.machines.components.TemperatureComponent;
+import aztech.modern_industrialization.nuclear.*;
+import com.google.common.base.Preconditions;
+import java.util.List;
+import java.util.Optional;
+import net.minecraft.item.ItemStack;
+
+/**
+ * The rules of a nuclear hatch that don't depend on where its item or fluid is
+ * stored. Used by {@link NuclearHatch}, and by the offline reactor simulator so
+ * that both follow the same rules.
+ */
+public class NuclearHatchHelper {
+    public static TemperatureComponent createTemperatureComponent(boolean isFluid) {
+        if (isFluid) {
+            return new SteamHeaterComponent(NuclearConstant.MAX_TEMPERATURE, NuclearConstant.MAX_HATCH_EU_PRODUCTION,
+                    NuclearConstant.EU_PER_DEGREE, true, true);
+        } else {
+            return new TemperatureComponent(NuclearConstant.MAX_TEMPERATURE);
+        }
+    }
+
+    public static double getHeatTransferCoeff(Optional<INuclearComponent> component) {
+        return NuclearConstant.BASE_HEAT_CONDUCTION + (component.isPresent() ? component.get().getHeatConduction() : 0);
+    }
+
+    public static void putHeat(TemperatureComponent temperature, NeutronHistoryComponent neutronHistory, double eu) {
+        Preconditions.checkArgument(eu >= 0);
+        temperature.setTemperature(temperature.getTemperature() + eu / NuclearConstant.EU_PER_DEGREE);
+        neutronHistory.addValue(NeutronHistoryComponent.EU_GENERATION, (int) eu);
+    }
+
+    public static void absorbNeutrons(NeutronHistoryComponent neutronHistory, int neutronNumber, NeutronType type) {
+        Preconditions.checkArgument(type != NeutronType.BOTH);
+        if (type == NeutronType.FAST) {
+            neutronHistory.addValue(NeutronHistoryComponent.FAST_NEUTRON_RECEIVED, neutronNumber);
+        } else {
+            neutronHistory.addValue(NeutronHistoryComponent.THERMAL_NEUTRON_RECEIVED, neutronNumber);
+        }
+    }
+
+    public static void addNeutronsToFlux(NeutronHistoryComponent neutronHistory, int neutronNumber, NeutronType type) {
+        Preconditions.checkArgument(type != NeutronType.BOTH);
+        if (type == NeutronType.FAST) {
+            neutronHistory.addValue(NeutronHistoryComponent.FAST_NEUTRON_FLUX, neutronNumber);
+        } else {
+            neutronHistory.addValue(NeutronHistoryComponent.THERMAL_NEUTRON_FLUX, neutronNumber);
+        }
+    }
+
+    /**
+     * Run the neutron generation of an item hatch. The desintegrations of the fuel
+     * or absorber in the stack are applied to the stack, the caller must check if
+     * it is depleted.
+     *
+     * @param stack The item of the hatch, or an empty stack if it can't absorb
+     *              neutrons.
+     * @return The number of neutrons produced.
+     */
+    public static int neutronGenerationTick(ItemStack stack, double temperature, NeutronHistoryComponent neutronHistory,
+            INuclearGrid grid) {
+        double meanNeutron = neutronHistory.getAverageReceived(NeutronType.BOTH) + NuclearConstant.BASE_NEUTRON;
+        int neutronsProduced = 0;
+
+        if (!stack.isEmpty() && stack.getItem() instanceof NuclearAbsorbable abs) {
+            if (abs instanceof NuclearFuel fuel) {
+                neutronsProduced = fuel.simulateDesintegration(meanNeutron, stack, temperature, grid.getRandom(), grid);
+            } else {
+                abs.simulateAbsorption(meanNeutron, stack, grid.getRandom());
+            }
+        }
+
+        neutronHistory.addValue(NeutronHistoryComponent.NEUTRON_GENERATION, neutronsProduced);
+        return neutronsProduced;
+    }
+
+    /**
+     * Turn the heat of a fluid hatch into steam, and register the produced EU.
+     */
+    public static void steamTick(TemperatureComponent temperature, List<ConfigurableFluidStack> fluidInputs,
+            List<ConfigurableFluidStack> fluidOutputs, INuclearGrid grid) {
+        grid.registerEuProduction(((SteamHeaterComponent) temperature).tick(fluidInputs, fluidOutputs));
+    }
+
+    /**
+     * Return true if the component of an item hatch melts at the temperature of
+     * the hatch.
+     */
+    public static boolean isMelting(Optional<INuclearComponent> component, double temperature) {
+        return component.isPresent() && component.get().getMaxTemperature() < temperature;
+    }
+}
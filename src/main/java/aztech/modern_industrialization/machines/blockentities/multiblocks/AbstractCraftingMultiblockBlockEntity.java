@@ -142,6 +142,8 @@ public abstract class AbstractCraftingMultiblockBlockEntity extends MultiblockMa
 
                 onSuccessfulMatch(shapeMatcher);
                 shapeValid.shapeValid = true;
+                // The recipes that can be processed may depend on the shape.
+                crafter.clearNoMatchCache();
 
                 // If there was an active recipe, we have to make sure the output fits, and lock
                 // the hatches.
@@ -122,7 +122,7 @@ public class EnergyFromFluidMultiblockBlockEntity extends MultiblockMachineBlock
                 insertEnergy(euProduced, Simulation.ACT);
                 isActiveComponent.updateActive(euProduced != 0, this);
             }
-            markDirty();
+            markDirtyIfChanged();
         }
 
     }
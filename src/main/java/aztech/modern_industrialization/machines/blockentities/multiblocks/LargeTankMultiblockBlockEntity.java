@@ -165,7 +165,7 @@ public class LargeTankMultiblockBlockEntity extends MultiblockMachineBlockEntity
     public void tick() {
         if (!world.isClient) {
             link();
-            markDirty();
+            markDirtyIfChanged();
             if (!this.getFluidData().equals(oldFluidData)) {
                 oldFluidData = this.getFluidData();
                 sync(false);
@@ -24,6 +24,7 @@
 package aztech.modern_industrialization.machines.blockentities.multiblocks;
 
 import aztech.modern_industrialization.MIBlock;
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.compat.rei.machines.ReiMachineRecipes;
 import aztech.modern_industrialization.inventory.MIInventory;
 import aztech.modern_industrialization.machines.BEP;
@@ -39,11 +40,16 @@ import aztech.modern_industrialization.machines.models.MachineModelClientData;
 import aztech.modern_industrialization.machines.multiblocks.*;
 import aztech.modern_industrialization.nuclear.*;
 import aztech.modern_industrialization.util.Tickable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.Direction;
@@ -60,9 +66,16 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
     private final ActiveShapeComponent activeShape;
     private final IsActiveComponent isActive;
     private final IntegerHistoryComponent efficiencyHistory;
+    // Indices in efficiencyHistory
+    private static final int EU_PRODUCTION = 0;
+    private static final int EU_FUEL_CONSUMPTION = 1;
+    // Don't bother with the fork-join pool for a single reactor.
+    private static final int MIN_PARALLEL_REACTORS = 2;
+    private static final List<NuclearReactorMultiblockBlockEntity> parallelTickReactors = new ArrayList<>();
     private ShapeMatcher shapeMatcher;
 
-    private INuclearGrid nuclearGrid;
+    private NuclearGridState nuclearGrid;
+    private Random random;
     private Supplier<NuclearReactorGui.Data> dataSupplier;
 
     public NuclearReactorMultiblockBlockEntity(BEP bep) {
@@ -118,14 +131,46 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
         if (!world.isClient) {
             link();
             if (shapeValid.shapeValid) {
-                NuclearGridHelper.simulate(nuclearGrid);
-                efficiencyHistory.tick();
+                if (MIConfig.getConfig().parallelNuclearReactors) {
+                    NuclearGridHelper.generateNeutrons(nuclearGrid, false);
+                    parallelTickReactors.add(this);
+                } else {
+                    NuclearGridHelper.simulate(nuclearGrid, MIConfig.getConfig().batchedNeutronSimulation);
+                    efficiencyHistory.tick();
+                }
             } else {
                 efficiencyHistory.clear();
             }
         }
     }
 
+    /**
+     * Finish the tick of the reactors that were scheduled during the world tick.
+     * The neutron generation already ran in {@link #tick}, the neutron transport
+     * of all reactors runs in parallel, and the rest of the simulation, which
+     * touches the hatches, runs on the server thread in scheduling order.
+     */
+    public static void onWorldTickEnd(ServerWorld world) {
+        if (parallelTickReactors.isEmpty()) {
+            return;
+        }
+
+        // Skip the reactors that were removed or unlinked since they were scheduled.
+        parallelTickReactors.removeIf(reactor -> reactor.getWorld() != world || reactor.isRemoved() || reactor.nuclearGrid == null);
+
+        boolean batchedNeutrons = MIConfig.getConfig().batchedNeutronSimulation;
+        Stream<NuclearReactorMultiblockBlockEntity> stream = parallelTickReactors.size() >= MIN_PARALLEL_REACTORS
+                ? parallelTickReactors.parallelStream()
+                : parallelTickReactors.stream();
+        stream.forEach(reactor -> NuclearGridHelper.transportNeutrons(reactor.nuclearGrid, batchedNeutrons));
+
+        for (NuclearReactorMultiblockBlockEntity reactor : parallelTickReactors) {
+            NuclearGridHelper.finishTick(reactor.nuclearGrid);
+            reactor.efficiencyHistory.tick();
+        }
+        parallelTickReactors.clear();
+    }
+
     protected void onSuccessfulMatch(ShapeMatcher shapeMatcher) {
         shapeValid.shapeValid = true;
         int size = gridLayout[activeShape.getActiveShapeIndex()].length;
@@ -155,7 +200,12 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
             hatchesGrid[x][y] = (NuclearHatch) hatch;
         }
 
-        nuclearGrid = new INuclearGrid() {
+        // Seed the simulation per reactor. The random is kept across rematches, so that
+        // a block update doesn't restart the same sequence.
+        if (random == null) {
+            random = new Random(((ServerWorld) world).getSeed() ^ pos.asLong());
+        }
+        INuclearGrid grid = new INuclearGrid() {
 
             @Override
             public int getSizeX() {
@@ -182,17 +232,23 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
 
             @Override
             public void registerEuFuelConsumption(double eu) {
-                efficiencyHistory.addValue("euFuelConsumption", (int) eu);
+                efficiencyHistory.addValue(EU_FUEL_CONSUMPTION, (int) eu);
 
             }
 
             @Override
             public void registerEuProduction(double eu) {
-                efficiencyHistory.addValue("euProduction", (int) eu);
+                efficiencyHistory.addValue(EU_PRODUCTION, (int) eu);
 
             }
 
+            @Override
+            public Random getRandom() {
+                return random;
+            }
+
         };
+        nuclearGrid = new NuclearGridState(grid);
 
         dataSupplier = () -> {
             Optional<INuclearTileData>[] tilesData = new Optional[size * size];
@@ -206,8 +262,8 @@ public class NuclearReactorMultiblockBlockEntity extends MultiblockMachineBlockE
                     tilesData[index] = Optional.ofNullable(hatchesGrid[x][y]);
                 }
             }
-            return new NuclearReactorGui.Data(true, size, size, tilesData, efficiencyHistory.getAverage("euProduction"),
-                    efficiencyHistory.getAverage("euFuelConsumption"));
+            return new NuclearReactorGui.Data(true, size, size, tilesData, efficiencyHistory.getAverage(EU_PRODUCTION),
+                    efficiencyHistory.getAverage(EU_FUEL_CONSUMPTION));
         };
     }
 
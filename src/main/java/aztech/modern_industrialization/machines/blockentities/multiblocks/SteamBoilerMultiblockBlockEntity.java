@@ -132,7 +132,7 @@ public class SteamBoilerMultiblockBlockEntity extends MultiblockMachineBlockEnti
                 steamHeater.decreaseTemperature(1);
                 this.isActiveComponent.updateActive(false, this);
             }
-            markDirty();
+            markDirtyIfChanged();
         }
     }
 }
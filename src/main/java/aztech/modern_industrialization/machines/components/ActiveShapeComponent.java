@@ -36,6 +36,7 @@ import net.minecraft.util.math.Direction;
 public class ActiveShapeComponent implements IComponent {
     public final ShapeTemplate[] shapeTemplates;
     private int activeShape = 0;
+    private int savedActiveShape = -1;
 
     public ActiveShapeComponent(ShapeTemplate[] shapeTemplates) {
         this.shapeTemplates = shapeTemplates;
@@ -67,4 +68,13 @@ public class ActiveShapeComponent implements IComponent {
     public void readNbt(NbtCompound tag) {
         activeShape = tag.getInt("activeShape");
     }
+
+    @Override
+    public boolean pollDirty() {
+        if (savedActiveShape == activeShape) {
+            return false;
+        }
+        savedActiveShape = activeShape;
+        return true;
+    }
 }
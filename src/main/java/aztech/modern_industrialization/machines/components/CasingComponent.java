@@ -76,6 +76,12 @@ public class CasingComponent implements IComponent {
 
     }
 
+    @Override
+    public boolean pollDirty() {
+        // The casing can only change in onUse(), which already marks the machine dirty.
+        return false;
+    }
+
     @Override
     public void writeClientNbt(NbtCompound tag) {
         tag.putString("casing", tierCasing.name);
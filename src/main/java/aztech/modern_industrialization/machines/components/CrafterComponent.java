@@ -36,9 +36,11 @@ import aztech.modern_industrialization.machines.recipe.MachineRecipeType;
 import aztech.modern_industrialization.util.Simulation;
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
 import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
@@ -105,6 +107,23 @@ public class CrafterComponent implements IComponent.ServerOnly {
     private long previousBaseEu = -1;
     private long previousMaxEu = -1;
 
+    // Values of the persisted fields at the last pollDirty() call
+    private Object savedRecipe;
+    private long savedUsedEnergy = -1;
+    private long savedRecipeEnergy, savedRecipeMaxEu;
+    private int savedEfficiencyTicks, savedMaxEfficiencyTicks;
+
+    private final CrafterNoMatchCache noMatchCache = new CrafterNoMatchCache();
+    private static long skippedRecipeSearches = 0;
+
+    /**
+     * Total number of recipe searches that were skipped because the inventory of
+     * the crafter didn't change since the last failed search.
+     */
+    public static long getSkippedRecipeSearches() {
+        return skippedRecipeSearches;
+    }
+
     public float getProgress() {
         return (float) usedEnergy / recipeEnergy;
     }
@@ -249,7 +268,26 @@ public class CrafterComponent implements IComponent.ServerOnly {
         }
     }
 
+    /**
+     * Force the next recipe search to run even if the inventory didn't change, for
+     * example because the result of {@link Behavior#banRecipe} might have changed.
+     */
+    public void clearNoMatchCache() {
+        noMatchCache.invalidate();
+    }
+
     private boolean updateActiveRecipe() {
+        // If the last search failed and nothing changed since then, don't bother
+        // searching again
+        boolean useNoMatchCache = efficiencyTicks == 0;
+        long maxRecipeEu = behavior.getMaxRecipeEu();
+        int maxFluidOutputs = behavior.getMaxFluidOutputs();
+        int recipesGeneration = MachineRecipeType.getRecipesGeneration();
+        if (useNoMatchCache && noMatchCache.matches(inventory, maxRecipeEu, maxFluidOutputs, recipesGeneration)) {
+            skippedRecipeSearches++;
+            return false;
+        }
+
         // Only then can we run the iteration over the recipes
         for (MachineRecipe recipe : getRecipes()) {
             if (behavior.banRecipe(recipe))
@@ -265,9 +303,13 @@ public class CrafterComponent implements IComponent.ServerOnly {
                 usedEnergy = 0;
                 recipeEnergy = recipe.getTotalEu();
                 recipeMaxEu = getRecipeMaxEu(recipe.eu, recipeEnergy, efficiencyTicks);
+                noMatchCache.invalidate();
                 return true;
             }
         }
+        if (useNoMatchCache) {
+            noMatchCache.record(inventory, maxRecipeEu, maxFluidOutputs, recipesGeneration);
+        }
         return false;
     }
 
@@ -277,13 +319,19 @@ public class CrafterComponent implements IComponent.ServerOnly {
         } else {
             ServerWorld serverWorld = (ServerWorld) behavior.getCrafterWorld();
             MachineRecipeType recipeType = behavior.recipeType();
-            List<MachineRecipe> recipes = new ArrayList<>(recipeType.getFluidOnlyRecipes(serverWorld));
+            List<Item> items = new ArrayList<>();
             for (ConfigurableItemStack stack : inventory.getItemInputs()) {
-                if (!stack.isEmpty()) {
-                    recipes.addAll(recipeType.getMatchingRecipes(serverWorld, stack.getResource().getItem()));
+                if (!stack.isEmpty() && !items.contains(stack.getResource().getItem())) {
+                    items.add(stack.getResource().getItem());
                 }
             }
-            return recipes;
+            List<Fluid> fluids = new ArrayList<>();
+            for (ConfigurableFluidStack stack : inventory.getFluidInputs()) {
+                if (stack.getAmount() > 0 && !fluids.contains(stack.getResource().getFluid())) {
+                    fluids.add(stack.getResource().getFluid());
+                }
+            }
+            return recipeType.getMatchingRecipes(serverWorld, items, fluids);
         }
     }
 
@@ -335,6 +383,22 @@ public class CrafterComponent implements IComponent.ServerOnly {
         tag.putInt("maxEfficiencyTicks", this.maxEfficiencyTicks);
     }
 
+    @Override
+    public boolean pollDirty() {
+        Object recipe = activeRecipe != null ? activeRecipe : delayedActiveRecipe;
+        if (savedRecipe == recipe && savedUsedEnergy == usedEnergy && savedRecipeEnergy == recipeEnergy && savedRecipeMaxEu == recipeMaxEu
+                && savedEfficiencyTicks == efficiencyTicks && savedMaxEfficiencyTicks == maxEfficiencyTicks) {
+            return false;
+        }
+        savedRecipe = recipe;
+        savedUsedEnergy = usedEnergy;
+        savedRecipeEnergy = recipeEnergy;
+        savedRecipeMaxEu = recipeMaxEu;
+        savedEfficiencyTicks = efficiencyTicks;
+        savedMaxEfficiencyTicks = maxEfficiencyTicks;
+        return true;
+    }
+
     public void readNbt(NbtCompound tag) {
         this.usedEnergy = tag.getInt("usedEnergy");
         this.recipeEnergy = tag.getInt("recipeEnergy");
@@ -348,26 +412,105 @@ public class CrafterComponent implements IComponent.ServerOnly {
         this.maxEfficiencyTicks = tag.getInt("maxEfficiencyTicks");
     }
 
+    /*
+     * The following functions operate on the scratch arrays below instead of the
+     * stacks, so that simulating doesn't require copying the stacks. When acting,
+     * the final amounts and keys are written back to the stacks. Locks are only
+     * applied at the end, so the stacks are never modified while a function runs.
+     */
+    private long[] scratchAmounts = new long[0];
+    private ItemVariant[] scratchItemKeys = new ItemVariant[0];
+    private FluidVariant[] scratchFluidKeys = new FluidVariant[0];
+    private int[] lockSlots = new int[0];
+    private Object[] lockInstances = new Object[0];
+    private int lockCount;
+
+    private long[] loadAmounts(List<? extends AbstractConfigurableStack<?, ?>> stacks) {
+        if (scratchAmounts.length < stacks.size()) {
+            scratchAmounts = new long[stacks.size()];
+        }
+        for (int i = 0; i < stacks.size(); ++i) {
+            scratchAmounts[i] = stacks.get(i).getAmount();
+        }
+        return scratchAmounts;
+    }
+
+    private ItemVariant[] loadItemKeys(List<ConfigurableItemStack> stacks) {
+        if (scratchItemKeys.length < stacks.size()) {
+            scratchItemKeys = new ItemVariant[stacks.size()];
+        }
+        for (int i = 0; i < stacks.size(); ++i) {
+            scratchItemKeys[i] = stacks.get(i).getResource();
+        }
+        return scratchItemKeys;
+    }
+
+    private FluidVariant[] loadFluidKeys(List<ConfigurableFluidStack> stacks) {
+        if (scratchFluidKeys.length < stacks.size()) {
+            scratchFluidKeys = new FluidVariant[stacks.size()];
+        }
+        for (int i = 0; i < stacks.size(); ++i) {
+            scratchFluidKeys[i] = stacks.get(i).getResource();
+        }
+        return scratchFluidKeys;
+    }
+
+    private <K> void writeBack(List<? extends AbstractConfigurableStack<?, K>> stacks, long[] amounts, K[] keys) {
+        for (int i = 0; i < stacks.size(); ++i) {
+            AbstractConfigurableStack<?, K> stack = stacks.get(i);
+            if (stack.getAmount() != amounts[i]) {
+                stack.setAmount(amounts[i]);
+            }
+            if (keys != null && stack.getResource() != keys[i]) {
+                stack.setKey(keys[i]);
+            }
+        }
+    }
+
+    private void addLock(int slot, Object instance) {
+        if (lockCount == lockSlots.length) {
+            lockSlots = Arrays.copyOf(lockSlots, Math.max(4, 2 * lockCount));
+            lockInstances = Arrays.copyOf(lockInstances, Math.max(4, 2 * lockCount));
+        }
+        lockSlots[lockCount] = slot;
+        lockInstances[lockCount] = instance;
+        lockCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void applyLocks(List<? extends AbstractConfigurableStack<T, ?>> stacks) {
+        for (int i = 0; i < lockCount; ++i) {
+            stacks.get(lockSlots[i]).enableMachineLock((T) lockInstances[i]);
+            lockInstances[i] = null;
+        }
+        lockCount = 0;
+    }
+
     /**
-     * cachedItemCounts must be correct when this function is called, and are
-     * guaranteed to be correct after this call
+     * Return the random source of the probabilistic inputs and outputs. Replaced by
+     * CrafterSimulationTest to compare runs.
      */
-    private boolean takeItemInputs(MachineRecipe recipe, boolean simulate) {
-        List<ConfigurableItemStack> baseList = inventory.getItemInputs();
-        List<ConfigurableItemStack> stacks = simulate ? ConfigurableItemStack.copyList(baseList) : baseList;
+    Random getRandom() {
+        return ThreadLocalRandom.current();
+    }
+
+    // Package-private for CrafterSimulationTest.
+    boolean takeItemInputs(MachineRecipe recipe, boolean simulate) {
+        List<ConfigurableItemStack> stacks = inventory.getItemInputs();
+        long[] amounts = loadAmounts(stacks);
 
         boolean ok = true;
         for (MachineRecipe.ItemInput input : recipe.itemInputs) {
             if (!simulate && input.probability < 1) { // if we are not simulating, there is a chance we don't need to take this output
-                if (ThreadLocalRandom.current().nextFloat() >= input.probability) {
+                if (getRandom().nextFloat() >= input.probability) {
                     continue;
                 }
             }
             int remainingAmount = input.amount;
-            for (ConfigurableItemStack stack : stacks) {
-                if (stack.getAmount() > 0 && input.matches(stack.getResource().toStack())) { // TODO: ItemStack creation slow?
-                    int taken = Math.min((int) stack.getAmount(), remainingAmount);
-                    stack.decrement(taken);
+            for (int i = 0; i < stacks.size(); ++i) {
+                if (amounts[i] > 0 && input.matches(stacks.get(i).getResource().getItem())) {
+                    int taken = Math.min((int) amounts[i], remainingAmount);
+                    amounts[i] -= taken;
                     remainingAmount -= taken;
                     if (remainingAmount == 0)
                         break;
@@ -377,25 +520,29 @@ public class CrafterComponent implements IComponent.ServerOnly {
                 ok = false;
         }
 
+        if (!simulate) {
+            writeBack(stacks, amounts, null);
+        }
         return ok;
     }
 
     protected boolean takeFluidInputs(MachineRecipe recipe, boolean simulate) {
-        List<ConfigurableFluidStack> baseList = inventory.getFluidInputs();
-        List<ConfigurableFluidStack> stacks = simulate ? ConfigurableFluidStack.copyList(baseList) : baseList;
+        List<ConfigurableFluidStack> stacks = inventory.getFluidInputs();
+        long[] amounts = loadAmounts(stacks);
 
         boolean ok = true;
         for (MachineRecipe.FluidInput input : recipe.fluidInputs) {
             if (!simulate && input.probability < 1) { // if we are not simulating, there is a chance we don't need to take this output
-                if (ThreadLocalRandom.current().nextFloat() >= input.probability) {
+                if (getRandom().nextFloat() >= input.probability) {
                     continue;
                 }
             }
+            FluidVariant inputKey = FluidVariant.of(input.fluid);
             long remainingAmount = input.amount;
-            for (ConfigurableFluidStack stack : stacks) {
-                if (stack.getResource().equals(FluidVariant.of(input.fluid))) {
-                    long taken = Math.min(remainingAmount, stack.getAmount());
-                    stack.decrement(taken);
+            for (int i = 0; i < stacks.size(); ++i) {
+                if (stacks.get(i).getResource().equals(inputKey)) {
+                    long taken = Math.min(remainingAmount, amounts[i]);
+                    amounts[i] -= taken;
                     remainingAmount -= taken;
                     if (remainingAmount == 0)
                         break;
@@ -404,22 +551,25 @@ public class CrafterComponent implements IComponent.ServerOnly {
             if (remainingAmount > 0)
                 ok = false;
         }
+
+        if (!simulate) {
+            writeBack(stacks, amounts, null);
+        }
         return ok;
     }
 
     protected boolean putItemOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock) {
-        List<ConfigurableItemStack> baseList = inventory.getItemOutputs();
-        List<ConfigurableItemStack> stacks = simulate ? ConfigurableItemStack.copyList(baseList) : baseList;
-
-        List<Integer> locksToToggle = new ArrayList<>();
-        List<Item> lockItems = new ArrayList<>();
+        List<ConfigurableItemStack> stacks = inventory.getItemOutputs();
+        long[] amounts = loadAmounts(stacks);
+        ItemVariant[] keys = loadItemKeys(stacks);
+        lockCount = 0;
 
         boolean ok = true;
         for (MachineRecipe.ItemOutput output : recipe.itemOutputs) {
             if (output.probability < 1) {
                 if (simulate)
                     continue; // don't check output space for probabilistic recipes
-                float randFloat = ThreadLocalRandom.current().nextFloat();
+                float randFloat = getRandom().nextFloat();
                 if (randFloat > output.probability)
                     continue;
             }
@@ -427,31 +577,29 @@ public class CrafterComponent implements IComponent.ServerOnly {
             // Try to insert in non-empty stacks or locked first, then also allow insertion
             // in empty stacks.
             for (int loopRun = 0; loopRun < 2; loopRun++) {
-                int stackId = 0;
-                for (ConfigurableItemStack stack : stacks) {
-                    stackId++;
-                    ItemVariant key = stack.getResource();
+                for (int i = 0; i < stacks.size(); ++i) {
+                    ConfigurableItemStack stack = stacks.get(i);
+                    ItemVariant key = keys[i];
                     if (key.getItem() == output.item || key.isBlank()) {
                         // If simulating, respect the adjusted capacity.
                         // If putting the output, don't respect the adjusted capacity in case it was
                         // reduced during the processing.
-                        int remainingCapacity = simulate ? (int) stack.getRemainingCapacityFor(ItemVariant.of(output.item))
-                                : output.item.getMaxCount() - (int) stack.getAmount();
+                        int remainingCapacity = simulate ? (int) (Math.min(output.item.getMaxCount(), stack.getAdjustedCapacity()) - amounts[i])
+                                : output.item.getMaxCount() - (int) amounts[i];
                         int ins = Math.min(remainingAmount, remainingCapacity);
                         if (key.isBlank()) {
-                            if ((stack.isMachineLocked() || stack.isPlayerLocked() || loopRun == 1) && stack.isValid(new ItemStack(output.item))) {
-                                stack.setAmount(ins);
-                                stack.setKey(ItemVariant.of(output.item));
+                            if ((stack.isMachineLocked() || stack.isPlayerLocked() || loopRun == 1) && stack.isResourceAllowedByLock(output.item)) {
+                                amounts[i] = ins;
+                                keys[i] = ItemVariant.of(output.item);
                             } else {
                                 ins = 0;
                             }
                         } else {
-                            stack.increment(ins);
+                            amounts[i] += ins;
                         }
                         remainingAmount -= ins;
                         if (ins > 0) {
-                            locksToToggle.add(stackId - 1);
-                            lockItems.add(output.item);
+                            addLock(i, output.item);
                         }
                         if (remainingAmount == 0)
                             break;
@@ -462,20 +610,20 @@ public class CrafterComponent implements IComponent.ServerOnly {
                 ok = false;
         }
 
+        if (!simulate) {
+            writeBack(stacks, amounts, keys);
+        }
         if (toggleLock) {
-            for (int i = 0; i < locksToToggle.size(); i++) {
-                baseList.get(locksToToggle.get(i)).enableMachineLock(lockItems.get(i));
-            }
+            applyLocks(stacks);
         }
         return ok;
     }
 
     protected boolean putFluidOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock) {
-        List<ConfigurableFluidStack> baseList = inventory.getFluidOutputs();
-        List<ConfigurableFluidStack> stacks = simulate ? ConfigurableFluidStack.copyList(baseList) : baseList;
-
-        List<Integer> locksToToggle = new ArrayList<>();
-        List<Fluid> lockFluids = new ArrayList<>();
+        List<ConfigurableFluidStack> stacks = inventory.getFluidOutputs();
+        long[] amounts = loadAmounts(stacks);
+        FluidVariant[] keys = loadFluidKeys(stacks);
+        lockCount = 0;
 
         boolean ok = true;
         for (int i = 0; i < Math.min(recipe.fluidOutputs.size(), behavior.getMaxFluidOutputs()); ++i) {
@@ -483,24 +631,22 @@ public class CrafterComponent implements IComponent.ServerOnly {
             if (output.probability < 1) {
                 if (simulate)
                     continue; // don't check output space for probabilistic recipes
-                float randFloat = ThreadLocalRandom.current().nextFloat();
+                float randFloat = getRandom().nextFloat();
                 if (randFloat > output.probability)
                     continue;
             }
+            FluidVariant outputKey = FluidVariant.of(output.fluid);
             // First, try to find a slot that contains the fluid. If we couldn't find one,
             // we insert in any stack
             outer: for (int tries = 0; tries < 2; ++tries) {
                 for (int j = 0; j < stacks.size(); j++) {
                     ConfigurableFluidStack stack = stacks.get(j);
-                    FluidVariant outputKey = FluidVariant.of(output.fluid);
-                    if (stack.isResourceAllowedByLock(outputKey)
-                            && ((tries == 1 && stack.isResourceBlank()) || stack.getResource().equals(outputKey))) {
-                        long inserted = Math.min(output.amount, stack.getRemainingSpace());
+                    if (stack.isResourceAllowedByLock(outputKey) && ((tries == 1 && keys[j].isBlank()) || keys[j].equals(outputKey))) {
+                        long inserted = Math.min(output.amount, stack.getCapacity() - amounts[j]);
                         if (inserted > 0) {
-                            stack.setKey(outputKey);
-                            stack.increment(inserted);
-                            locksToToggle.add(j);
-                            lockFluids.add(output.fluid);
+                            keys[j] = outputKey;
+                            amounts[j] += inserted;
+                            addLock(j, output.fluid);
                         }
                         if (inserted < output.amount) {
                             ok = false;
@@ -514,10 +660,11 @@ public class CrafterComponent implements IComponent.ServerOnly {
             }
         }
 
+        if (!simulate) {
+            writeBack(stacks, amounts, keys);
+        }
         if (toggleLock) {
-            for (int i = 0; i < locksToToggle.size(); i++) {
-                baseList.get(locksToToggle.get(i)).enableMachineLock(lockFluids.get(i));
-            }
+            applyLocks(stacks);
         }
         return ok;
     }
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.components;
+
+import aztech.modern_industrialization.inventory.AbstractConfigurableStack;
+import java.util.List;
+
+/**
+ * Remembers the state of a crafter's inventory the last time no recipe could
+ * be started, so that the recipe search can be skipped until something
+ * changes. The full state is stored and compared, so there are no false hits.
+ */
+final class CrafterNoMatchCache {
+    private boolean valid = false;
+    private int size = 0;
+    private Object[] keys = new Object[0];
+    private long[] amounts = new long[0];
+    private long[] capacities = new long[0];
+    private Object[] locks = new Object[0];
+    private byte[] lockFlags = new byte[0];
+    private long maxRecipeEu;
+    private int maxFluidOutputs;
+    private int recipesGeneration;
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Return true if the inventory and the other parameters are exactly the same
+     * as when {@link #record} was last called.
+     */
+    boolean matches(CrafterComponent.Inventory inventory, long maxRecipeEu, int maxFluidOutputs, int recipesGeneration) {
+        if (!valid || maxRecipeEu != this.maxRecipeEu || maxFluidOutputs != this.maxFluidOutputs
+                || recipesGeneration != this.recipesGeneration) {
+            return false;
+        }
+        if (getSize(inventory) != size) {
+            return false;
+        }
+        int i = 0;
+        i = matchesStacks(inventory.getItemInputs(), i);
+        if (i < 0)
+            return false;
+        i = matchesStacks(inventory.getItemOutputs(), i);
+        if (i < 0)
+            return false;
+        i = matchesStacks(inventory.getFluidInputs(), i);
+        if (i < 0)
+            return false;
+        i = matchesStacks(inventory.getFluidOutputs(), i);
+        return i >= 0;
+    }
+
+    /**
+     * Record the current state of the inventory and the other parameters.
+     */
+    void record(CrafterComponent.Inventory inventory, long maxRecipeEu, int maxFluidOutputs, int recipesGeneration) {
+        this.maxRecipeEu = maxRecipeEu;
+        this.maxFluidOutputs = maxFluidOutputs;
+        this.recipesGeneration = recipesGeneration;
+        size = getSize(inventory);
+        if (keys.length < size) {
+            keys = new Object[size];
+            amounts = new long[size];
+            capacities = new long[size];
+            locks = new Object[size];
+            lockFlags = new byte[size];
+        }
+        int i = 0;
+        i = recordStacks(inventory.getItemInputs(), i);
+        i = recordStacks(inventory.getItemOutputs(), i);
+        i = recordStacks(inventory.getFluidInputs(), i);
+        recordStacks(inventory.getFluidOutputs(), i);
+        valid = true;
+    }
+
+    private static int getSize(CrafterComponent.Inventory inventory) {
+        return inventory.getItemInputs().size() + inventory.getItemOutputs().size() + inventory.getFluidInputs().size()
+                + inventory.getFluidOutputs().size();
+    }
+
+    private static byte getLockFlags(AbstractConfigurableStack<?, ?> stack) {
+        return (byte) ((stack.isMachineLocked() ? 1 : 0) | (stack.isPlayerLocked() ? 2 : 0));
+    }
+
+    /**
+     * Return the index of the next stack, or -1 if a stack doesn't match.
+     */
+    private int matchesStacks(List<? extends AbstractConfigurableStack<?, ?>> stacks, int i) {
+        for (int j = 0; j < stacks.size(); ++j, ++i) {
+            AbstractConfigurableStack<?, ?> stack = stacks.get(j);
+            if (stack.getAmount() != amounts[i] || stack.getCapacity() != capacities[i] || stack.getLockedInstance() != locks[i]
+                    || getLockFlags(stack) != lockFlags[i] || !stack.getResource().equals(keys[i])) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    private int recordStacks(List<? extends AbstractConfigurableStack<?, ?>> stacks, int i) {
+        for (int j = 0; j < stacks.size(); ++j, ++i) {
+            AbstractConfigurableStack<?, ?> stack = stacks.get(j);
+            keys[i] = stack.getResource();
+            amounts[i] = stack.getAmount();
+            capacities[i] = stack.getCapacity();
+            locks[i] = stack.getLockedInstance();
+            lockFlags[i] = getLockFlags(stack);
+        }
+        return i;
+    }
+}
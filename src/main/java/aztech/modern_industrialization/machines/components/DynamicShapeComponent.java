@@ -34,6 +34,7 @@ public class DynamicShapeComponent implements IComponent {
 
     public final ShapeTemplate[] shapeTemplates;
     private int activeShape = 0;
+    private int savedActiveShape = -1;
     private ShapeMatcher shapeMatcher;
     /**
      * Not actually a shape matcher, it's just used to listen to block updates in
@@ -59,6 +60,15 @@ public class DynamicShapeComponent implements IComponent {
         activeShape = tag.getInt("activeShape");
     }
 
+    @Override
+    public boolean pollDirty() {
+        if (savedActiveShape == activeShape) {
+            return false;
+        }
+        savedActiveShape = activeShape;
+        return true;
+    }
+
     public ShapeTemplate getActiveShape() {
         return shapeTemplates[activeShape];
     }
@@ -36,6 +36,7 @@ import net.minecraft.nbt.NbtCompound;
 public class EnergyComponent implements IComponent.ServerOnly {
     private long storedEu;
     private final Supplier<Long> capacity;
+    private long savedEu = -1;
 
     public EnergyComponent(Supplier<Long> capacity) {
         this.capacity = capacity;
@@ -65,6 +66,16 @@ public class EnergyComponent implements IComponent.ServerOnly {
         setEu(tag.getLong("storedEu"));
     }
 
+    @Override
+    public boolean pollDirty() {
+        long eu = getEu();
+        if (eu == savedEu) {
+            return false;
+        }
+        savedEu = eu;
+        return true;
+    }
+
     private void setEu(long eu) {
         this.storedEu = Math.min(eu, capacity.get());
     }
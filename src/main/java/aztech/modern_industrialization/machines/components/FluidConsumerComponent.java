@@ -36,6 +36,7 @@ import net.minecraft.nbt.NbtCompound;
  */
 public class FluidConsumerComponent implements IComponent.ServerOnly {
     private long euBuffer = 0;
+    private long savedEuBuffer = -1;
     /**
      * The maximum EU that can be produced by one production operation, to limit the
      * maximum conversion rate of the machine.
@@ -60,6 +61,15 @@ public class FluidConsumerComponent implements IComponent.ServerOnly {
         euBuffer = tag.getLong("euBuffer");
     }
 
+    @Override
+    public boolean pollDirty() {
+        if (savedEuBuffer == euBuffer) {
+            return false;
+        }
+        savedEuBuffer = euBuffer;
+        return true;
+    }
+
     public long getEuProduction(List<ConfigurableFluidStack> fluidInputs, long maxEnergyInsertable) {
         long maxEuProduced = Math.min(maxEnergyInsertable, maxEuProduction);
 
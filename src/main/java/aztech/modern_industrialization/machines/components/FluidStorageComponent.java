@@ -32,6 +32,8 @@ import net.minecraft.nbt.NbtCompound;
 public class FluidStorageComponent implements IComponent {
 
     private long capacity;
+    private FluidVariant savedFluid = null;
+    private long savedAmount, savedCapacity;
 
     SingleVariantStorage<FluidVariant> singleStorageVariant = new SingleVariantStorage<FluidVariant>() {
         @Override
@@ -80,4 +82,16 @@ public class FluidStorageComponent implements IComponent {
         singleStorageVariant.amount = tag.getLong("amount");
         capacity = tag.getLong("capacity");
     }
+
+    @Override
+    public boolean pollDirty() {
+        FluidVariant fluid = singleStorageVariant.variant;
+        if (fluid.equals(savedFluid) && savedAmount == singleStorageVariant.amount && savedCapacity == capacity) {
+            return false;
+        }
+        savedFluid = fluid;
+        savedAmount = singleStorageVariant.amount;
+        savedCapacity = capacity;
+        return true;
+    }
 }
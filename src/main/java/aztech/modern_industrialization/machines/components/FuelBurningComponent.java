@@ -60,6 +60,7 @@ public class FuelBurningComponent implements IComponent {
      * Buffer of EU that was burnt already, and is awaiting to be turned into heat.
      */
     private long burningEuBuffer;
+    private long savedBurningEuBuffer = -1;
 
     public FuelBurningComponent(TemperatureComponent temperature, long maxEuProduction, long euPerDegree, long burningEuMultiplier) {
         this.temperature = temperature;
@@ -151,4 +152,13 @@ public class FuelBurningComponent implements IComponent {
     public void readNbt(NbtCompound tag) {
         burningEuBuffer = tag.getLong("burningEuBuffer");
     }
+
+    @Override
+    public boolean pollDirty() {
+        if (savedBurningEuBuffer == burningEuBuffer) {
+            return false;
+        }
+        savedBurningEuBuffer = burningEuBuffer;
+        return true;
+    }
 }
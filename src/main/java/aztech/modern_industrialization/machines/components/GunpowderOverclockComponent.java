@@ -37,6 +37,7 @@ import net.minecraft.util.Hand;
 public class GunpowderOverclockComponent implements IComponent {
 
     public int overclockGunpowderTick;
+    private int savedOverclockGunpowderTick = -1;
 
     @Override
     public void writeNbt(NbtCompound tag) {
@@ -48,6 +49,15 @@ public class GunpowderOverclockComponent implements IComponent {
         overclockGunpowderTick = tag.getInt("overclockGunpowderTick");
     }
 
+    @Override
+    public boolean pollDirty() {
+        if (savedOverclockGunpowderTick == overclockGunpowderTick) {
+            return false;
+        }
+        savedOverclockGunpowderTick = overclockGunpowderTick;
+        return true;
+    }
+
     public ActionResult onUse(MachineBlockEntity be, PlayerEntity player, Hand hand) {
         ItemStack stackInHand = player.getStackInHand(hand);
         if (stackInHand.getItem() == Items.GUNPOWDER && stackInHand.getCount() >= 1) {
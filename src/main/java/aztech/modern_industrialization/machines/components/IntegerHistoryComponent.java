@@ -24,14 +24,23 @@
 package aztech.modern_industrialization.machines.components;
 
 import aztech.modern_industrialization.machines.IComponent;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import net.minecraft.nbt.NbtCompound;
 
+/**
+ * Keeps the values of the last ticks for a few keys. Each history is a ring
+ * buffer with a running sum, so ticking doesn't allocate and averages are O(1).
+ * Keys can be passed either by name or by their index in {@link #KEYS}.
+ */
 public class IntegerHistoryComponent implements IComponent {
 
-    protected final Map<String, int[]> histories = new HashMap<>();
-    protected final Map<String, Integer> updatingValue = new HashMap<>();
+    // histories[key][(head + i) % TICK_HISTORY_SIZE] is the value from i ticks ago.
+    protected final int[][] histories;
+    protected final long[] sums;
+    protected final int[] updatingValues;
+    private int head = 0;
+    // Set when the saved histories change. Shifting histories that only contain zeroes doesn't count.
+    private boolean dirty = true;
 
     public final String[] KEYS;
     public final int TICK_HISTORY_SIZE;
@@ -39,63 +48,97 @@ public class IntegerHistoryComponent implements IComponent {
     public IntegerHistoryComponent(String[] keys, int tick_history_size) {
         KEYS = keys;
         TICK_HISTORY_SIZE = tick_history_size;
-        clear();
+        histories = new int[keys.length][tick_history_size];
+        sums = new long[keys.length];
+        updatingValues = new int[keys.length];
     }
 
     @Override
     public void writeNbt(NbtCompound tag) {
-        for (String key : KEYS) {
-            tag.putIntArray(key, histories.get(key));
+        // Most recent value first
+        for (int k = 0; k < KEYS.length; ++k) {
+            int[] array = new int[TICK_HISTORY_SIZE];
+            for (int i = 0; i < TICK_HISTORY_SIZE; ++i) {
+                array[i] = histories[k][(head + i) % TICK_HISTORY_SIZE];
+            }
+            tag.putIntArray(KEYS[k], array);
         }
     }
 
     @Override
     public void readNbt(NbtCompound tag) {
-        for (String key : KEYS) {
-            if (tag.contains(key)) {
-                int[] array = tag.getIntArray(key);
+        head = 0;
+        for (int k = 0; k < KEYS.length; ++k) {
+            int[] history = histories[k];
+            Arrays.fill(history, 0);
+            if (tag.contains(KEYS[k])) {
+                int[] array = tag.getIntArray(KEYS[k]);
                 if (array.length == TICK_HISTORY_SIZE) {
-                    histories.put(key, array);
-                    continue;
+                    System.arraycopy(array, 0, history, 0, TICK_HISTORY_SIZE);
                 }
             }
-            histories.put(key, new int[TICK_HISTORY_SIZE]);
+            long sum = 0;
+            for (int value : history) {
+                sum += value;
+            }
+            sums[k] = sum;
         }
+        dirty = true;
     }
 
-    public double getAverage(String key) {
-        double avg = 0;
-        int[] values = histories.get(key);
-        for (int value : values) {
-            avg += value;
+    @Override
+    public boolean pollDirty() {
+        boolean wasDirty = dirty;
+        dirty = false;
+        return wasDirty;
+    }
+
+    public int getKeyIndex(String key) {
+        for (int k = 0; k < KEYS.length; ++k) {
+            if (KEYS[k].equals(key)) {
+                return k;
+            }
         }
-        return avg / TICK_HISTORY_SIZE;
+        throw new IllegalArgumentException("No key found for : " + key);
+    }
+
+    public double getAverage(String key) {
+        return getAverage(getKeyIndex(key));
+    }
 
+    public double getAverage(int keyIndex) {
+        return (double) sums[keyIndex] / TICK_HISTORY_SIZE;
     }
 
     public void clear() {
-        for (String key : KEYS) {
-            histories.put(key, new int[TICK_HISTORY_SIZE]);
-            updatingValue.put(key, 0);
+        for (int k = 0; k < KEYS.length; ++k) {
+            Arrays.fill(histories[k], 0);
+            sums[k] = 0;
+            updatingValues[k] = 0;
         }
+        head = 0;
+        dirty = true;
     }
 
     public void tick() {
-        for (String key : KEYS) {
-            int[] valuesArray = histories.get(key);
-            int[] newValues = new int[TICK_HISTORY_SIZE];
-            System.arraycopy(valuesArray, 0, newValues, 1, TICK_HISTORY_SIZE - 1);
-            newValues[0] = updatingValue.get(key);
-            histories.put(key, newValues);
-            updatingValue.put(key, 0);
+        // The new head is the slot of the oldest value, which is dropped.
+        head = head == 0 ? TICK_HISTORY_SIZE - 1 : head - 1;
+        for (int k = 0; k < KEYS.length; ++k) {
+            int[] history = histories[k];
+            if (updatingValues[k] != 0 || history[head] != 0) {
+                dirty = true;
+            }
+            sums[k] += updatingValues[k] - history[head];
+            history[head] = updatingValues[k];
+            updatingValues[k] = 0;
         }
     }
 
     public void addValue(String key, int delta) {
-        if (!updatingValue.containsKey(key)) {
-            throw new IllegalArgumentException("No key found for : " + key);
-        } else {
-            updatingValue.put(key, updatingValue.get(key) + delta);
-        }
+        addValue(getKeyIndex(key), delta);
+    }
+
+    public void addValue(int keyIndex, int delta) {
+        updatingValues[keyIndex] += delta;
     }
 }
@@ -87,4 +87,9 @@ public class MachineInventoryComponent implements CrafterComponent.Inventory, IC
     public void readNbt(NbtCompound tag) {
         this.inventory.readNbt(tag);
     }
+
+    @Override
+    public boolean pollDirty() {
+        return this.inventory.pollDirty();
+    }
 }
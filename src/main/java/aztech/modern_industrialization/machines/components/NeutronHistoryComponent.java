@@ -29,6 +29,13 @@ import static aztech.modern_industrialization.nuclear.NeutronType.THERMAL;
 import aztech.modern_industrialization.nuclear.NeutronType;
 
 public class NeutronHistoryComponent extends IntegerHistoryComponent {
+    // Indices in KEYS
+    public static final int FAST_NEUTRON_RECEIVED = 0;
+    public static final int FAST_NEUTRON_FLUX = 1;
+    public static final int THERMAL_NEUTRON_RECEIVED = 2;
+    public static final int THERMAL_NEUTRON_FLUX = 3;
+    public static final int NEUTRON_GENERATION = 4;
+    public static final int EU_GENERATION = 5;
 
     public NeutronHistoryComponent() {
         super(new String[] { "fastNeutronReceived", "fastNeutronFlux", "thermalNeutronReceived", "thermalNeutronFlux", "neutronGeneration",
@@ -37,9 +44,9 @@ public class NeutronHistoryComponent extends IntegerHistoryComponent {
 
     public double getAverageReceived(NeutronType type) {
         if (type == FAST) {
-            return getAverage("fastNeutronReceived");
+            return getAverage(FAST_NEUTRON_RECEIVED);
         } else if (type == THERMAL) {
-            return getAverage("thermalNeutronReceived");
+            return getAverage(THERMAL_NEUTRON_RECEIVED);
         } else if (type == NeutronType.BOTH) {
             return getAverageReceived(FAST) + getAverageReceived(THERMAL);
         } else {
@@ -49,9 +56,9 @@ public class NeutronHistoryComponent extends IntegerHistoryComponent {
 
     public double getAverageFlux(NeutronType type) {
         if (type == FAST) {
-            return getAverage("fastNeutronFlux");
+            return getAverage(FAST_NEUTRON_FLUX);
         } else if (type == THERMAL) {
-            return getAverage("thermalNeutronFlux");
+            return getAverage(THERMAL_NEUTRON_FLUX);
         } else if (type == NeutronType.BOTH) {
             return getAverageFlux(FAST) + getAverageFlux(THERMAL);
         } else {
@@ -60,11 +67,11 @@ public class NeutronHistoryComponent extends IntegerHistoryComponent {
     }
 
     public double getAverageGeneration() {
-        return getAverage("neutronGeneration");
+        return getAverage(NEUTRON_GENERATION);
     }
 
     public double getAverageEuGeneration() {
-        return getAverage("euGeneration");
+        return getAverage(EU_GENERATION);
     }
 
 }
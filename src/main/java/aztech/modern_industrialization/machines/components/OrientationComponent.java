@@ -39,6 +39,8 @@ public class OrientationComponent implements IComponent {
     public boolean extractItems = false;
     public boolean extractFluids = false;
     public final Params params;
+    private Direction savedFacingDirection = null, savedOutputDirection = null;
+    private boolean savedExtractItems = false, savedExtractFluids = false;
 
     public OrientationComponent(Params params) {
         this.params = params;
@@ -65,6 +67,19 @@ public class OrientationComponent implements IComponent {
         }
     }
 
+    @Override
+    public boolean pollDirty() {
+        if (savedFacingDirection == facingDirection && savedOutputDirection == outputDirection && savedExtractItems == extractItems
+                && savedExtractFluids == extractFluids) {
+            return false;
+        }
+        savedFacingDirection = facingDirection;
+        savedOutputDirection = outputDirection;
+        savedExtractItems = extractItems;
+        savedExtractFluids = extractFluids;
+        return true;
+    }
+
     public void writeModelData(MachineModelClientData data) {
         data.frontDirection = facingDirection;
         if (params.hasOutput) {
@@ -29,6 +29,7 @@ import net.minecraft.nbt.NbtCompound;
 public class TemperatureComponent implements IComponent {
 
     private double temperature;
+    private double savedTemperature = -1;
     public final double temperatureMax;
 
     public TemperatureComponent(double temperatureMax) {
@@ -62,4 +63,13 @@ public class TemperatureComponent implements IComponent {
     public void readNbt(NbtCompound tag) {
         setTemperature(tag.getDouble("temperature"));
     }
+
+    @Override
+    public boolean pollDirty() {
+        if (savedTemperature == temperature) {
+            return false;
+        }
+        savedTemperature = temperature;
+        return true;
+    }
 }
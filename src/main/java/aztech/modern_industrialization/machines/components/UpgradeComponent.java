@@ -64,6 +64,12 @@ public class UpgradeComponent implements IComponent.ServerOnly {
         itemStack = ItemStack.fromNbt(tag.getCompound("upgradesItemStack"));
     }
 
+    @Override
+    public boolean pollDirty() {
+        // The upgrades can only change in onUse(), which already marks the machine dirty.
+        return false;
+    }
+
     public ActionResult onUse(MachineBlockEntity be, PlayerEntity player, Hand hand) {
         ItemStack stackInHand = player.getStackInHand(hand);
         if (stackInHand.isEmpty()) {
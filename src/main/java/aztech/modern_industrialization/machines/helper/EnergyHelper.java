@@ -39,6 +39,5 @@ public class EnergyHelper {
         if (insertable instanceof EnergyInsertable && ((EnergyInsertable) insertable).canInsert(output)) {
             energy.insertEnergy((EnergyInsertable) insertable);
         }
-        machine.markDirty();
     }
 }
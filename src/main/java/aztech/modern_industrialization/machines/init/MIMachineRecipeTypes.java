@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
 
@@ -67,6 +68,8 @@ public class MIMachineRecipeTypes {
 
     public static void init() {
         // init static
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> MachineRecipeType.onRecipesReloaded());
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, serverResourceManager, success) -> MachineRecipeType.onRecipesReloaded());
     }
 
     public static List<MachineRecipeType> getRecipeTypes() {
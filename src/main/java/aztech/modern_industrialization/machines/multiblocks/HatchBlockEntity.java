@@ -139,7 +139,7 @@ public abstract class HatchBlockEntity extends MachineBlockEntity implements Tic
         }
 
         tickTransfer();
-        markDirty();
+        markDirtyIfChanged();
     }
 
     protected void tickTransfer() {
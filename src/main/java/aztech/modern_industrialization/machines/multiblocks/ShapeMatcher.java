@@ -56,6 +56,23 @@ public class ShapeMatcher implements ChunkEventListener {
     private boolean matchSuccessful = false;
     private final List<HatchBlockEntity> matchedHatches = new ArrayList<>();
 
+    /*
+     * Incremental rematching: only the positions that changed since the last
+     * rematch are checked again, as well as the positions whose hatch was claimed
+     * by another multiblock, since it might have been released without any block
+     * update. The hatches of the shape are only linked while the match is
+     * successful, but they are remembered in either case. matchedHatches is rebuilt
+     * in the order of the shape positions, so that it doesn't depend on the order
+     * of the updates.
+     */
+    private boolean needsFullRematch = true;
+    private final Set<BlockPos> dirtyPositions = new HashSet<>();
+    private final Set<BlockPos> failedPositions = new HashSet<>();
+    private final Set<BlockPos> claimedHatchPositions = new HashSet<>();
+    private final Map<BlockPos, HatchBlockEntity> hatchesByPos = new HashMap<>();
+    private final List<HatchBlockEntity> positionHatches = new ArrayList<>(1);
+    private boolean hatchesChanged = false;
+
     /**
      * Convert a relative position in the shape template to the real position in the
      * world.
@@ -99,13 +116,17 @@ public class ShapeMatcher implements ChunkEventListener {
     }
 
     public void unlinkHatches() {
-        for (HatchBlockEntity hatch : matchedHatches) {
-            hatch.unlink();
+        if (matchSuccessful) {
+            for (HatchBlockEntity hatch : matchedHatches) {
+                hatch.unlink();
+            }
         }
 
         matchedHatches.clear();
+        hatchesByPos.clear();
         matchSuccessful = false;
         needsRematch = true;
+        needsFullRematch = true;
     }
 
     /**
@@ -125,8 +146,8 @@ public class ShapeMatcher implements ChunkEventListener {
         if (be instanceof HatchBlockEntity hatch) {
             HatchFlags flags = hatchFlags.get(pos);
             if (flags != null && flags.allows(hatch.getHatchType()) && !hatch.isMatched()) {
-                if (matchedHatches != null) {
-                    matchedHatches.add(hatch);
+                if (hatches != null) {
+                    hatches.add(hatch);
                 }
                 return true;
             }
@@ -144,28 +165,97 @@ public class ShapeMatcher implements ChunkEventListener {
     }
 
     public void rematch(World world) {
-        unlinkHatches();
-        matchSuccessful = true;
+        boolean wasSuccessful = matchSuccessful;
 
-        for (BlockPos pos : simpleMembers.keySet()) {
-            // TODO: check if the chunk is loaded
+        if (needsFullRematch) {
+            unlinkHatches();
+            wasSuccessful = false;
+            failedPositions.clear();
+            claimedHatchPositions.clear();
+            for (BlockPos pos : simpleMembers.keySet()) {
+                // TODO: check if the chunk is loaded
+                matchPosition(world, pos, false);
+            }
+            needsFullRematch = false;
+        } else {
+            dirtyPositions.addAll(claimedHatchPositions);
+            for (BlockPos pos : dirtyPositions) {
+                matchPosition(world, pos, wasSuccessful);
+            }
+        }
+        dirtyPositions.clear();
 
-            if (!matches(pos, world, matchedHatches)) {
-                matchSuccessful = false;
+        if (failedPositions.isEmpty() && !wasSuccessful) {
+            // Another multiblock might have claimed some hatches in the meantime.
+            for (Iterator<Map.Entry<BlockPos, HatchBlockEntity>> it = hatchesByPos.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<BlockPos, HatchBlockEntity> entry = it.next();
+                if (entry.getValue().isMatched() || entry.getValue().isRemoved()) {
+                    failedPositions.add(entry.getKey());
+                    claimedHatchPositions.add(entry.getKey());
+                    it.remove();
+                    hatchesChanged = true;
+                }
             }
         }
+        matchSuccessful = failedPositions.isEmpty();
 
-        if (!matchSuccessful) {
+        if (hatchesChanged) {
             matchedHatches.clear();
-        } else {
+            for (BlockPos pos : simpleMembers.keySet()) {
+                HatchBlockEntity hatch = hatchesByPos.get(pos);
+                if (hatch != null) {
+                    matchedHatches.add(hatch);
+                }
+            }
+            hatchesChanged = false;
+        }
+
+        if (matchSuccessful && !wasSuccessful) {
             for (HatchBlockEntity hatch : matchedHatches) {
                 hatch.link(template.hatchCasing);
             }
+        } else if (!matchSuccessful && wasSuccessful) {
+            for (HatchBlockEntity hatch : matchedHatches) {
+                hatch.unlink();
+            }
         }
 
         needsRematch = false;
     }
 
+    /**
+     * Check a single position again, and update the failed positions and the
+     * hatches accordingly.
+     */
+    private void matchPosition(World world, BlockPos pos, boolean hatchesLinked) {
+        HatchBlockEntity oldHatch = hatchesByPos.remove(pos);
+        if (oldHatch != null) {
+            hatchesChanged = true;
+            if (hatchesLinked) {
+                oldHatch.unlink();
+            }
+        }
+        claimedHatchPositions.remove(pos);
+
+        positionHatches.clear();
+        if (matches(pos, world, positionHatches)) {
+            failedPositions.remove(pos);
+            if (!positionHatches.isEmpty()) {
+                HatchBlockEntity hatch = positionHatches.get(0);
+                hatchesByPos.put(pos, hatch);
+                hatchesChanged = true;
+                if (hatchesLinked) {
+                    hatch.link(template.hatchCasing);
+                }
+            }
+        } else {
+            failedPositions.add(pos);
+            if (world.getBlockEntity(pos) instanceof HatchBlockEntity hatch && hatch.isMatched()) {
+                claimedHatchPositions.add(pos);
+            }
+        }
+    }
+
     public Set<ChunkPos> getSpannedChunks() {
         Set<ChunkPos> spannedChunks = new HashSet<>();
         for (BlockPos pos : simpleMembers.keySet()) {
@@ -175,31 +265,29 @@ public class ShapeMatcher implements ChunkEventListener {
     }
 
     public void registerListeners(World world) {
-        for (ChunkPos chunkPos : getSpannedChunks()) {
-            ChunkEventListeners.listeners.add(world, chunkPos, this);
-        }
+        ChunkEventListeners.listeners.add(world, this, simpleMembers.keySet());
     }
 
     public void unregisterListeners(World world) {
-        for (ChunkPos chunkPos : getSpannedChunks()) {
-            ChunkEventListeners.listeners.remove(world, chunkPos, this);
-        }
+        ChunkEventListeners.listeners.remove(world, this, simpleMembers.keySet());
     }
 
     @Override
     public void onBlockUpdate(BlockPos pos) {
-        if (simpleMembers.containsKey(pos)) {
-            needsRematch = true;
-        }
+        // Only called for the positions of the shape.
+        dirtyPositions.add(pos.toImmutable());
+        needsRematch = true;
     }
 
     @Override
     public void onUnload() {
         needsRematch = true;
+        needsFullRematch = true;
     }
 
     @Override
     public void onLoad() {
         needsRematch = true;
+        needsFullRematch = true;
     }
 }
@@ -26,6 +26,10 @@ package aztech.modern_industrialization.machines.multiblocks.world;
 import net.minecraft.util.math.BlockPos;
 
 public interface ChunkEventListener {
+    /**
+     * Called when the block at one of the positions the listener was registered
+     * for changes.
+     */
     void onBlockUpdate(BlockPos pos);
 
     void onUnload();
@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.multiblocks.world;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Listeners indexed by the exact positions they watch. Chunks are keyed by
+ * {@link ChunkPos#toLong}, and each chunk section keeps a bitset of the watched
+ * positions, so that most block updates are rejected without a position
+ * lookup.
+ */
+public class ChunkEventListenerIndex {
+    private final Map<World, Long2ObjectOpenHashMap<ChunkListeners>> storage = new HashMap<>();
+
+    public final void add(World world, ChunkEventListener listener, Collection<BlockPos> positions) {
+        Long2ObjectOpenHashMap<ChunkListeners> chunks = storage.computeIfAbsent(world, w -> new Long2ObjectOpenHashMap<>());
+        for (BlockPos pos : positions) {
+            long chunkPos = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+            chunks.computeIfAbsent(chunkPos, p -> new ChunkListeners()).add(listener, pos);
+        }
+    }
+
+    public final void remove(World world, ChunkEventListener listener, Collection<BlockPos> positions) {
+        Long2ObjectOpenHashMap<ChunkListeners> chunks = storage.get(world);
+        for (BlockPos pos : positions) {
+            long chunkPos = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+            ChunkListeners chunkListeners = chunks == null ? null : chunks.get(chunkPos);
+
+            if (chunkListeners == null || !chunkListeners.remove(listener, pos)) {
+                throw new RuntimeException("Could not remove listener at position " + pos + " as it does not exist.");
+            }
+
+            if (chunkListeners.isEmpty()) {
+                chunks.remove(chunkPos);
+            }
+        }
+
+        if (chunks.isEmpty()) {
+            storage.remove(world);
+        }
+    }
+
+    /**
+     * @return The listeners watching at least one position in the chunk.
+     */
+    @Nullable
+    public final Set<ChunkEventListener> get(World world, ChunkPos chunkPos) {
+        Long2ObjectOpenHashMap<ChunkListeners> chunks = storage.get(world);
+        if (chunks == null) {
+            return null;
+        }
+        ChunkListeners chunkListeners = chunks.get(chunkPos.toLong());
+        return chunkListeners == null ? null : chunkListeners.listenerCounts.keySet();
+    }
+
+    /**
+     * @return The listeners watching the position, or null if there are none.
+     */
+    @Nullable
+    public final List<ChunkEventListener> get(World world, ChunkPos chunkPos, BlockPos pos) {
+        Long2ObjectOpenHashMap<ChunkListeners> chunks = storage.get(world);
+        if (chunks == null) {
+            return null;
+        }
+        ChunkListeners chunkListeners = chunks.get(chunkPos.toLong());
+        return chunkListeners == null ? null : chunkListeners.get(pos);
+    }
+
+    public final int size() {
+        return storage.size();
+    }
+
+    private static class ChunkListeners {
+        // Number of watched positions in this chunk, for each listener.
+        final Reference2IntOpenHashMap<ChunkEventListener> listenerCounts = new Reference2IntOpenHashMap<>();
+        // Bitset of the watched positions, for each section y.
+        final Int2ObjectOpenHashMap<long[]> sectionBits = new Int2ObjectOpenHashMap<>();
+        final Long2ObjectOpenHashMap<List<ChunkEventListener>> positionListeners = new Long2ObjectOpenHashMap<>();
+
+        void add(ChunkEventListener listener, BlockPos pos) {
+            listenerCounts.addTo(listener, 1);
+            positionListeners.computeIfAbsent(pos.asLong(), p -> new ArrayList<>(1)).add(listener);
+            long[] bits = sectionBits.computeIfAbsent(pos.getY() >> 4, y -> new long[64]);
+            int index = indexInSection(pos);
+            bits[index >> 6] |= 1L << index;
+        }
+
+        boolean remove(ChunkEventListener listener, BlockPos pos) {
+            List<ChunkEventListener> listeners = positionListeners.get(pos.asLong());
+            if (listeners == null || !listeners.remove(listener)) {
+                return false;
+            }
+
+            if (listenerCounts.addTo(listener, -1) == 1) {
+                listenerCounts.removeInt(listener);
+            }
+
+            if (listeners.isEmpty()) {
+                positionListeners.remove(pos.asLong());
+                long[] bits = sectionBits.get(pos.getY() >> 4);
+                int index = indexInSection(pos);
+                bits[index >> 6] &= ~(1L << index);
+                if (isZero(bits)) {
+                    sectionBits.remove(pos.getY() >> 4);
+                }
+            }
+            return true;
+        }
+
+        @Nullable
+        List<ChunkEventListener> get(BlockPos pos) {
+            long[] bits = sectionBits.get(pos.getY() >> 4);
+            if (bits == null) {
+                return null;
+            }
+            int index = indexInSection(pos);
+            if ((bits[index >> 6] & (1L << index)) == 0) {
+                return null;
+            }
+            return positionListeners.get(pos.asLong());
+        }
+
+        boolean isEmpty() {
+            return listenerCounts.isEmpty();
+        }
+
+        private static int indexInSection(BlockPos pos) {
+            return (pos.getY() & 15) << 8 | (pos.getZ() & 15) << 4 | (pos.getX() & 15);
+        }
+
+        private static boolean isZero(long[] bits) {
+            for (long word : bits) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -24,6 +24,7 @@
 package aztech.modern_industrialization.machines.multiblocks.world;
 
 import aztech.modern_industrialization.ModernIndustrialization;
+import java.util.List;
 import java.util.Set;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
@@ -33,7 +34,7 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 
 public class ChunkEventListeners {
-    public static ChunkPosMultiMap<ChunkEventListener> listeners = new ChunkPosMultiMap<>();
+    public static ChunkEventListenerIndex listeners = new ChunkEventListenerIndex();
     private static MinecraftServer server = null;
 
     public static void init() {
@@ -65,7 +66,7 @@ public class ChunkEventListeners {
         // We skip block state changes that happen outside of the server thread.
         // Hopefully that won't cause problems.
         if (server.isOnThread()) {
-            Set<ChunkEventListener> cels = listeners.get(world, chunkPos);
+            List<ChunkEventListener> cels = listeners.get(world, chunkPos, pos);
             if (cels != null) {
                 for (ChunkEventListener cel : cels) {
                     cel.onBlockUpdate(pos);
@@ -83,7 +84,7 @@ public class ChunkEventListeners {
     private static void serverStopCleanup() {
         if (listeners.size() != 0) {
             ModernIndustrialization.LOGGER.warn("ChunkEventListeners#listeners is not empty at server stop! Active worlds: " + listeners.size());
-            listeners = new ChunkPosMultiMap<>();
+            listeners = new ChunkEventListenerIndex();
         }
     }
 }
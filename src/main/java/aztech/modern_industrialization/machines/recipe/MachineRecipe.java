@@ -134,6 +134,18 @@ public class MachineRecipe implements Recipe<Inventory> {
             return ingredient.test(otherStack);
         }
 
+        /**
+         * Same as {@link #matches(ItemStack)}, but doesn't require creating a stack.
+         */
+        public boolean matches(Item item) {
+            for (ItemStack stack : ((IngredientMatchingStacksAccessor) (Object) ingredient).modern_industrialization_getMatchingStacks()) {
+                if (stack.getItem() == item) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         public List<Item> getInputItems() {
             return Arrays.stream(((IngredientMatchingStacksAccessor) (Object) ingredient).modern_industrialization_getMatchingStacks())
                     .map(ItemStack::getItem).distinct().collect(Collectors.toList());
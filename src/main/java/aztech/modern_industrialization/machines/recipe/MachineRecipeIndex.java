@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.recipe;
+
+import java.util.*;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.item.Item;
+
+/**
+ * Index of the recipes of a {@link MachineRecipeType}. Every recipe is indexed
+ * by all the items and fluids it accepts, and a recipe is only returned by
+ * {@link #getMatchingRecipes} if every one of its inputs can be matched by one
+ * of the items or fluids that were passed. The amounts are not checked.
+ *
+ * <p>
+ * Not thread-safe: it must only be queried from the server thread.
+ */
+final class MachineRecipeIndex {
+    private final Map<Item, List<Entry>> byItem = new IdentityHashMap<>();
+    private final Map<Fluid, List<Entry>> byFluid = new IdentityHashMap<>();
+    /**
+     * Used to avoid returning the same recipe twice without allocating a set for
+     * every query.
+     */
+    private int queryId = 0;
+
+    MachineRecipeIndex(Collection<MachineRecipe> recipes) {
+        for (MachineRecipe recipe : recipes) {
+            Entry entry = new Entry(recipe);
+            // Zero-amount inputs are indexed too, otherwise a recipe whose inputs all have
+            // a zero amount could never be found.
+            for (MachineRecipe.ItemInput input : recipe.itemInputs) {
+                for (Item item : input.getInputItems()) {
+                    List<Entry> entries = byItem.computeIfAbsent(item, i -> new ArrayList<>());
+                    // Multiple inputs of the same recipe may accept the same item.
+                    if (entries.isEmpty() || entries.get(entries.size() - 1) != entry) {
+                        entries.add(entry);
+                    }
+                }
+            }
+            if (recipe.itemInputs.size() == 0) {
+                for (MachineRecipe.FluidInput input : recipe.fluidInputs) {
+                    Fluid fluid = input.fluid;
+                    List<Entry> entries = byFluid.computeIfAbsent(fluid, f -> new ArrayList<>());
+                    if (entries.isEmpty() || entries.get(entries.size() - 1) != entry) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the recipes whose inputs can all be matched by the passed items and
+     * fluids. Recipes without item inputs come first, followed by the other
+     * recipes in the order of the passed items.
+     */
+    List<MachineRecipe> getMatchingRecipes(List<Item> items, List<Fluid> fluids) {
+        int query = ++queryId;
+        List<MachineRecipe> result = new ArrayList<>();
+
+        for (Fluid fluid : fluids) {
+            for (Entry entry : byFluid.getOrDefault(fluid, Collections.emptyList())) {
+                if (entry.lastQuery != query) {
+                    entry.lastQuery = query;
+                    if (entry.matches(items, fluids)) {
+                        result.add(entry.recipe);
+                    }
+                }
+            }
+        }
+        for (Item item : items) {
+            for (Entry entry : byItem.getOrDefault(item, Collections.emptyList())) {
+                if (entry.lastQuery != query) {
+                    entry.lastQuery = query;
+                    if (entry.matches(items, fluids)) {
+                        result.add(entry.recipe);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static class Entry {
+        final MachineRecipe recipe;
+        /**
+         * Accepted items for every item input with a nonzero amount.
+         */
+        final List<Set<Item>> itemInputs = new ArrayList<>();
+        /**
+         * Fluid of every fluid input with a nonzero amount.
+         */
+        final List<Fluid> fluidInputs = new ArrayList<>();
+        int lastQuery = 0;
+
+        Entry(MachineRecipe recipe) {
+            this.recipe = recipe;
+            for (MachineRecipe.ItemInput input : recipe.itemInputs) {
+                if (input.amount > 0) {
+                    Set<Item> inputItems = Collections.newSetFromMap(new IdentityHashMap<>());
+                    inputItems.addAll(input.getInputItems());
+                    itemInputs.add(inputItems);
+                }
+            }
+            for (MachineRecipe.FluidInput input : recipe.fluidInputs) {
+                if (input.amount > 0) {
+                    fluidInputs.add(input.fluid);
+                }
+            }
+        }
+
+        boolean matches(List<Item> items, List<Fluid> fluids) {
+            outer: for (Set<Item> inputItems : itemInputs) {
+                for (Item item : items) {
+                    if (inputItems.contains(item)) {
+                        continue outer;
+                    }
+                }
+                return false;
+            }
+            for (Fluid fluid : fluidInputs) {
+                if (!fluids.contains(fluid)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
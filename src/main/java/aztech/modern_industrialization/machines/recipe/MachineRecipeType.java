@@ -65,57 +65,43 @@ public class MachineRecipeType implements RecipeType<MachineRecipe>, RecipeSeria
 
     /*
      * Smart recipe system to avoid iterating over all available recipes. Every
-     * recipe can be accessed by the type of its first input, so we build a cache
-     * Item -> MachineRecipe. We also need to store recipes that have fluid inputs
-     * but no item inputs. This cache is updated every 20 seconds in case the
-     * recipes are sometimes reloaded. TODO: only rebuild when the recipes have been
-     * reloaded
+     * recipe is indexed by all of its item and fluid inputs, see
+     * MachineRecipeIndex. The index is only rebuilt after the recipes have been
+     * reloaded.
      */
-    private final Map<Item, List<MachineRecipe>> recipeCache = new HashMap<>();
-    private final List<MachineRecipe> fluidOnlyRecipes = new ArrayList<>();
-    private long lastUpdate = 0;
-    private static final long UPDATE_INTERVAL = 20 * 1000; // 20 seconds
+    private static int recipesGeneration = 0;
+    private int indexGeneration = -1;
+    private MachineRecipeIndex recipeIndex = null;
 
     /**
-     * Update recipe cache if necessary
+     * Invalidate the recipe caches of all recipe types. Must be called every time
+     * the recipe manager is reloaded.
      */
-    private void updateRecipeCache(ServerWorld world) {
-        long time = System.currentTimeMillis();
-        if (time - lastUpdate <= UPDATE_INTERVAL)
-            return;
-
-        // Update cache
-        lastUpdate = time;
-        recipeCache.clear();
-        fluidOnlyRecipes.clear();
-        for (MachineRecipe recipe : getRecipes(world)) {
-            if (recipe.itemInputs.size() == 0) {
-                if (recipe.fluidInputs.size() > 0) {
-                    fluidOnlyRecipes.add(recipe);
-                }
-            } else {
-                for (Item inputItem : recipe.itemInputs.get(0).getInputItems()) {
-                    recipeCache.putIfAbsent(inputItem, new ArrayList<>());
-                    recipeCache.get(inputItem).add(recipe);
-                }
-            }
-        }
+    public static void onRecipesReloaded() {
+        recipesGeneration++;
     }
 
     /**
-     * Get all recipes that are using some Item.
+     * Return a counter that is incremented every time the recipes are reloaded.
      */
-    public Collection<MachineRecipe> getMatchingRecipes(ServerWorld world, Item input) {
-        updateRecipeCache(world);
-        return Collections.unmodifiableCollection(recipeCache.getOrDefault(input, Collections.emptyList()));
+    public static int getRecipesGeneration() {
+        return recipesGeneration;
+    }
+
+    private MachineRecipeIndex getRecipeIndex(ServerWorld world) {
+        if (indexGeneration != recipesGeneration) {
+            recipeIndex = new MachineRecipeIndex(getRecipes(world));
+            indexGeneration = recipesGeneration;
+        }
+        return recipeIndex;
     }
 
     /**
-     * Get all recipes that are not using any input item.
+     * Get all recipes whose inputs can all be matched by the given items and
+     * fluids. The amounts are not checked. Never modify or store the result!
      */
-    public Collection<MachineRecipe> getFluidOnlyRecipes(ServerWorld world) {
-        updateRecipeCache(world);
-        return Collections.unmodifiableList(fluidOnlyRecipes);
+    public List<MachineRecipe> getMatchingRecipes(ServerWorld world, List<Item> items, List<Fluid> fluids) {
+        return getRecipeIndex(world).getMatchingRecipes(items, fluids);
     }
 
     private final Identifier id;
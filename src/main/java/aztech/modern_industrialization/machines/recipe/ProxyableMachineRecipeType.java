@@ -37,17 +37,15 @@ public abstract class ProxyableMachineRecipeType extends MachineRecipeType {
         super(id);
     }
 
-    private long lastUpdate = 0;
-    private static final long UPDATE_INTERVAL = 20 * 1000;
+    private int recipeListGeneration = -1;
     protected List<MachineRecipe> recipeList = new ArrayList<>();
 
     protected abstract void fillRecipeList(ServerWorld world);
 
     @Override
     public Collection<MachineRecipe> getRecipes(ServerWorld world) {
-        long time = System.currentTimeMillis();
-        if (time - lastUpdate > UPDATE_INTERVAL) {
-            lastUpdate = time;
+        if (recipeListGeneration != getRecipesGeneration()) {
+            recipeListGeneration = getRecipesGeneration();
             recipeList.clear();
             fillRecipeList(world);
         }
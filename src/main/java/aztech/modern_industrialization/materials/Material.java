@@ -24,6 +24,7 @@
 package aztech.modern_industrialization.materials;
 
 import aztech.modern_industrialization.materials.part.MaterialPart;
+import aztech.modern_industrialization.textures.coloramp.Coloramp;
 import java.util.Collections;
 import java.util.Map;
 
@@ -32,12 +33,16 @@ import java.util.Map;
  */
 public class Material {
     public final String name;
+    public final String materialSet;
+    public final Coloramp coloramp;
     final Map<String, MaterialPart> parts;
 
     public final Runnable registerRecipes;
 
-    Material(String name, Map<String, MaterialPart> parts, Runnable registerRecipes) {
+    Material(String name, String materialSet, Coloramp coloramp, Map<String, MaterialPart> parts, Runnable registerRecipes) {
         this.name = name;
+        this.materialSet = materialSet;
+        this.coloramp = coloramp;
         this.parts = parts;
         this.registerRecipes = registerRecipes;
     }
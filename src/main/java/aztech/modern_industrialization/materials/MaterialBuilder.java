@@ -155,7 +155,7 @@ public final class MaterialBuilder {
             event.onRegister(context);
         }
 
-        return new Material(materialName, Collections.unmodifiableMap(partsMap), this::buildRecipes);
+        return new Material(materialName, materialSet, coloramp, Collections.unmodifiableMap(partsMap), this::buildRecipes);
     }
 
     public void buildRecipes() {
@@ -23,10 +23,10 @@
  */
 package aztech.modern_industrialization.materials.recipe.builder;
 
-import aztech.modern_industrialization.ModernIndustrialization;
 import aztech.modern_industrialization.materials.MaterialBuilder;
 import aztech.modern_industrialization.materials.part.MaterialPart;
 import aztech.modern_industrialization.materials.part.Part;
+import aztech.modern_industrialization.recipe.MIRecipes;
 import aztech.modern_industrialization.recipe.json.MIRecipeJson;
 import com.google.gson.Gson;
 import net.minecraft.util.Identifier;
@@ -168,7 +168,7 @@ public class MIRecipeBuilder implements MaterialRecipeBuilder {
     public void save() {
         if (!canceled) {
             String fullId = "modern_industrialization:recipes/generated/materials/" + context.getMaterialName() + "/" + recipeId + ".json";
-            ModernIndustrialization.RESOURCE_PACK.addData(new Identifier(fullId), GSON.toJson(json).getBytes());
+            MIRecipes.addMaterialRecipe(new Identifier(fullId), GSON.toJson(json).getBytes());
         }
     }
 
@@ -23,9 +23,9 @@
  */
 package aztech.modern_industrialization.materials.recipe.builder;
 
-import aztech.modern_industrialization.ModernIndustrialization;
 import aztech.modern_industrialization.materials.MaterialBuilder;
 import aztech.modern_industrialization.materials.part.Part;
+import aztech.modern_industrialization.recipe.MIRecipes;
 import aztech.modern_industrialization.recipe.json.SmeltingRecipeJson;
 import com.google.gson.Gson;
 import net.minecraft.util.Identifier;
@@ -90,7 +90,7 @@ public class SmeltingRecipeBuilder implements MaterialRecipeBuilder {
         if (!canceled) {
             String fullId = "modern_industrialization:recipes/generated/materials/" + context.getMaterialName() + "/" + recipeId + ".json";
             String json = GSON.toJson(this.json);
-            ModernIndustrialization.RESOURCE_PACK.addData(new Identifier(fullId), json.getBytes());
+            MIRecipes.addMaterialRecipe(new Identifier(fullId), json.getBytes());
         }
     }
 }
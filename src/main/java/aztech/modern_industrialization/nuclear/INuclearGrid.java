@@ -24,6 +24,7 @@
 package aztech.modern_industrialization.nuclear;
 
 import java.util.Optional;
+import java.util.Random;
 
 public interface INuclearGrid {
 
@@ -41,4 +42,10 @@ public interface INuclearGrid {
 
     void registerEuProduction(double eu);
 
+    /**
+     * The random source of the whole simulation, so that a reactor can be seeded
+     * and replayed.
+     */
+    Random getRandom();
+
 }
@@ -25,191 +25,394 @@ package aztech.modern_industrialization.nuclear;
 
 import static aztech.modern_industrialization.nuclear.NeutronFate.*;
 
-import java.util.Optional;
+import java.util.Arrays;
 import java.util.Random;
 
 public class NuclearGridHelper {
 
-    private static final int[] dX = { 1, 0, -1, 0 };
-    private static final int[] dY = { 0, 1, 0, -1 };
-
-    private static final Random rand = new Random();
+    static final int[] dX = { 1, 0, -1, 0 };
+    static final int[] dY = { 0, 1, 0, -1 };
 
     private static final int MAX_STEP = 100;
     private static final int MAX_SPLIT = 30;
 
     public static void simulate(INuclearGrid grid) {
+        simulate(new NuclearGridState(grid), false);
+    }
 
-        int sizeX = grid.getSizeX();
-        int sizeY = grid.getSizeY();
+    /**
+     * Simulate one tick of the grid.
+     *
+     * @param batchedNeutrons If true, the neutrons generated by all the fuel rods
+     *                        are transported together as populations, splitting
+     *                        them binomially at every interaction instead of
+     *                        walking each packet separately.
+     */
+    public static void simulate(NuclearGridState state, boolean batchedNeutrons) {
+        // Without batching, neutrons are walked as soon as they are generated, so that
+        // the next fuel rods see the heat they deposit.
+        generateNeutrons(state, !batchedNeutrons);
+        transportNeutrons(state, batchedNeutrons);
+        finishTick(state);
+    }
 
-        for (int i = 0; i < sizeX; i++) {
-            for (int j = 0; j < sizeY; j++) {
+    /**
+     * First phase of a tick: run the neutron generation of every tile, which
+     * updates the fuel in the tiles. Must be called on the server thread.
+     *
+     * @param walkImmediately If true, walk the neutrons right away, otherwise
+     *                        leave them to {@link #transportNeutrons}.
+     */
+    public static void generateNeutrons(NuclearGridState state, boolean walkImmediately) {
+        state.refreshComponents();
+
+        for (int cell : state.tileCells) {
+            INuclearTile tile = state.tiles[cell];
+            // The fuel must be known before the generation tick, which might deplete it.
+            NuclearFuel fuel = state.fuel[cell];
+            // The temperature of the tile matters for the generation tick.
+            state.flushHeat(cell);
+            int neutronNumberPrime = tile.neutronGenerationTick(state.grid);
+            state.refreshComponent(cell);
+
+            if (neutronNumberPrime > 0) {
+                if (fuel == null) {
+                    throw new IllegalStateException("Neutron generated without fuel");
+                }
 
-                final int x = i;
-                final int y = j;
+                state.pendingHeat[cell] += neutronNumberPrime * fuel.directEUbyDesintegration / fuel.neutronMultiplicationFactor;
 
-                Optional<INuclearTile> maybeTile = grid.getNuclearTile(i, j);
+                if (walkImmediately) {
+                    walkSource(state, cell, neutronNumberPrime);
+                } else {
+                    state.sourceNeutrons[cell] += neutronNumberPrime;
+                }
+            }
+        }
+    }
 
-                if (maybeTile.isPresent()) {
-                    INuclearTile tile = maybeTile.get();
-                    Optional<NuclearFuel> maybeFuel = tile.getFuel();
-                    int neutronNumberPrime = tile.neutronGenerationTick(grid);
+    /**
+     * Second phase of a tick: transport the neutrons left by
+     * {@link #generateNeutrons}. This only touches the state and not the tiles, so
+     * different grids can be transported in parallel.
+     */
+    public static void transportNeutrons(NuclearGridState state, boolean batchedNeutrons) {
+        if (batchedNeutrons) {
+            transportBatched(state);
+        } else {
+            for (int cell : state.tileCells) {
+                int neutronNumber = state.sourceNeutrons[cell];
+                if (neutronNumber > 0) {
+                    state.sourceNeutrons[cell] = 0;
+                    walkSource(state, cell, neutronNumber);
+                }
+            }
+        }
+    }
 
-                    if (neutronNumberPrime > 0) {
-                        if (maybeFuel.isEmpty()) {
-                            throw new IllegalStateException("Neutron generated without fuel");
-                        }
-                        NuclearFuel fuel = maybeFuel.get();
+    /**
+     * Last phase of a tick: write the neutrons back to the tiles, exchange heat and
+     * run the nuclear tick of every tile. Must be called on the server thread.
+     */
+    public static void finishTick(NuclearGridState state) {
+        INuclearTile[] tiles = state.tiles;
+        int[] tileCells = state.tileCells;
 
-                        tile.putHeat(neutronNumberPrime * fuel.directEUbyDesintegration / fuel.neutronMultiplicationFactor);
+        state.flushNeutrons();
 
-                        int split = Math.min(neutronNumberPrime, MAX_SPLIT);
-                        int neutronNumberPerSplit = neutronNumberPrime / split;
+        // HEAT
+        state.readTemperatures();
+        int cellCount = tiles.length;
+        int[] neighbours = state.neighbours;
+        double[] temperature = state.temperature;
+        double[] heatTransferCoeff = state.heatTransferCoeff;
+        double[] temperatureOut = state.temperatureOut;
+        double[] temperatureDelta = state.temperatureDelta;
+        for (int cell : tileCells) {
+            temperatureOut[cell] = 0;
+            temperatureDelta[cell] = 0;
+        }
 
-                        for (int k = 0; k < split + 1; k++) {
+        for (int step = 0; step < 2; step++) {
+            // step 0: compute temperatureOut = dT * coeff
+            // step 1: compute temperatureDelta, clamping as necessary
+            for (int cell : tileCells) {
+                double temperatureA = temperature[cell];
+                if (step == 1) {
+                    // clamp to avoid reaching < 0 temperatures
+                    temperatureDelta[cell] -= Math.min(temperatureA, temperatureOut[cell]);
+                }
+                for (int k = 0; k < 4; k++) {
+                    int secondCell = neighbours[k * cellCount + cell];
+
+                    if (secondCell != -1) {
+                        double temperatureB = temperature[secondCell];
+                        double coeffTransfer = 0.5 * (heatTransferCoeff[cell] + heatTransferCoeff[secondCell]);
+                        if (temperatureA > temperatureB) {
+                            if (step == 0) {
+                                temperatureOut[cell] += (temperatureA - temperatureB) * coeffTransfer;
+                            } else {
+                                double frac = Math.min(1, temperatureA / temperatureOut[cell]);
+                                temperatureDelta[secondCell] += frac * (temperatureA - temperatureB) * coeffTransfer;
+                            }
+                        }
+                    } else if (step == 0) {
+                        double coeffTransfer = 0.5 * heatTransferCoeff[cell];
+                        temperatureOut[cell] += temperatureA * coeffTransfer;
+                    }
+                }
+            }
+        }
 
-                            int neutronNumber = (k < split) ? neutronNumberPerSplit : neutronNumberPrime % split;
+        // Only write back the temperatures that changed.
+        for (int cell : tileCells) {
+            if (temperatureDelta[cell] != 0) {
+                tiles[cell].setTemperature(temperature[cell] + temperatureDelta[cell]);
+            }
+        }
 
-                            if (neutronNumber > 0) {
-                                NeutronType type = NeutronType.FAST;
-                                grid.registerNeutronCreation(neutronNumber, type);
+        for (int cell : tileCells) {
+            tiles[cell].nuclearTick(state.grid);
+        }
+    }
 
-                                int dir = rand.nextInt(4);
-                                int step = 0;
-                                int posX = x;
-                                int posY = y;
+    private static void walkSource(NuclearGridState state, int cell, int neutronNumberPrime) {
+        int split = Math.min(neutronNumberPrime, MAX_SPLIT);
+        int neutronNumberPerSplit = neutronNumberPrime / split;
 
-                                while (step < MAX_STEP) {
-                                    step++;
+        for (int k = 0; k < split + 1; k++) {
 
-                                    Optional<INuclearTile> maybeSecondTile = grid.getNuclearTile(posX, posY);
+            int neutronNumber = (k < split) ? neutronNumberPerSplit : neutronNumberPrime % split;
 
-                                    if (maybeSecondTile.isPresent()) {
+            if (neutronNumber > 0) {
+                walkNeutrons(state, cell, neutronNumber);
+            }
+        }
+    }
 
-                                        INuclearTile secondTile = maybeSecondTile.get();
-                                        secondTile.addNeutronsToFlux(neutronNumber, type);
+    private static void walkNeutrons(NuclearGridState state, int cell, int neutronNumber) {
+        Random rand = state.random;
+        int cellCount = state.tiles.length;
+        int type = NuclearGridState.FAST;
+        state.registerNeutronCreation(neutronNumber, type);
 
-                                        if (secondTile.getComponent().isPresent()) {
-                                            INuclearComponent component = secondTile.getComponent().get();
-                                            double interactionProba = component.getNeutronBehaviour().interactionTotalProbability(type);
+        int dir = rand.nextInt(4);
+        int step = 0;
 
-                                            if (rand.nextDouble() < interactionProba) {
+        while (step < MAX_STEP) {
+            step++;
 
-                                                double interactionSelector = rand.nextDouble();
+            if (cell == -1) {
+                state.registerNeutronFate(neutronNumber, type, ESCAPE);
+                break;
+            }
 
-                                                double probaAbsorption = component.getNeutronBehaviour().interactionRelativeProbability(type,
-                                                        NeutronInteraction.ABSORPTION);
+            state.flux[type][cell] += neutronNumber;
 
-                                                if (interactionSelector <= probaAbsorption) {
-                                                    secondTile.absorbNeutrons(neutronNumber, type);
+            int behaviour = state.behaviour[cell];
+            if (behaviour != -1 && rand.nextDouble() < state.interactionProbability[type][behaviour]) {
 
-                                                    if (type == NeutronType.FAST) {
-                                                        secondTile.putHeat(neutronNumber * NuclearConstant.EU_FOR_FAST_NEUTRON);
-                                                    }
+                double interactionSelector = rand.nextDouble();
 
-                                                    if (secondTile.getFuel().isPresent()) {
-                                                        grid.registerNeutronFate(neutronNumber, type, ABSORBED_IN_FUEL);
-                                                    } else {
-                                                        grid.registerNeutronFate(neutronNumber, type, ABSORBED_NOT_IN_FUEL);
-                                                    }
+                if (interactionSelector <= state.absorptionProbability[type][behaviour]) {
+                    absorb(state, cell, type, neutronNumber);
+                    break;
+                } else {
+                    dir = rand.nextInt(4);
 
-                                                    break;
-                                                } else {
-                                                    dir = rand.nextInt(4);
+                    if (type == NuclearGridState.FAST && rand.nextDouble() < state.slowingProbability[behaviour]) {
+                        type = NuclearGridState.THERMAL;
+                        state.pendingHeat[cell] += neutronNumber * NuclearConstant.EU_FOR_FAST_NEUTRON;
+                    }
+                }
+            }
 
-                                                    if (type == NeutronType.FAST
-                                                            && rand.nextDouble() < component.getNeutronBehaviour().neutronSlowingProbability()) {
-                                                        type = NeutronType.THERMAL;
-                                                        secondTile.putHeat(neutronNumber * NuclearConstant.EU_FOR_FAST_NEUTRON);
-                                                    }
-                                                }
-                                            }
-                                        }
+            cell = state.neighbours[dir * cellCount + cell];
+        }
+    }
 
-                                    } else {
-                                        grid.registerNeutronFate(neutronNumber, type, ESCAPE);
-                                        break;
-                                    }
+    private static void absorb(NuclearGridState state, int cell, int type, int neutronNumber) {
+        state.absorbed[type][cell] += neutronNumber;
 
-                                    posX += dX[dir];
-                                    posY += dY[dir];
-                                }
-                            }
-                        }
+        if (type == NuclearGridState.FAST) {
+            state.pendingHeat[cell] += neutronNumber * NuclearConstant.EU_FOR_FAST_NEUTRON;
+        }
 
-                    }
-                }
+        state.registerNeutronFate(neutronNumber, type, state.fuel[cell] != null ? ABSORBED_IN_FUEL : ABSORBED_NOT_IN_FUEL);
+    }
 
+    /**
+     * Transport all the source neutrons of the grid at once. Instead of following
+     * packets, we keep the number of neutrons of each type going in each direction
+     * in every cell, and split these populations binomially at every step: some
+     * interact, of which some are absorbed and the rest scatter uniformly in the 4
+     * directions, possibly slowing down. The expected flux, absorption and heat
+     * are the same as with the packet walk, with much less variance.
+     */
+    private static void transportBatched(NuclearGridState state) {
+        Random rand = state.random;
+        int cellCount = state.tiles.length;
+        int[] population = state.population;
+        int[] next = state.nextPopulation;
+        long remaining = 0;
+
+        for (int cell : state.tileCells) {
+            int neutronNumber = state.sourceNeutrons[cell];
+            if (neutronNumber > 0) {
+                state.sourceNeutrons[cell] = 0;
+                state.registerNeutronCreation(neutronNumber, NuclearGridState.FAST);
+                remaining += scatter(rand, population, cellCount, cell, NuclearGridState.FAST, neutronNumber);
             }
-
         }
 
-        // HEAT
-        double[][] temperatureOut = new double[sizeX][sizeY];
-        double[][] temperatureDelta = new double[sizeX][sizeY];
+        for (int step = 0; step < MAX_STEP && remaining > 0; step++) {
+            remaining = 0;
 
-        for (int step = 0; step < 3; step++) {
-            // step 0: compute temperatureOut = dT * coeff
-            // step 1: compute temperatureDelta, clamping as necessary
-            // step 2: set temperature
-            for (int i = 0; i < sizeX; i++) {
-                for (int j = 0; j < sizeY; j++) {
-
-                    Optional<INuclearTile> maybeTile = grid.getNuclearTile(i, j);
-                    if (maybeTile.isPresent()) {
-
-                        INuclearTile tile = maybeTile.get();
-                        double temperatureA = tile.getTemperature();
-                        if (step == 2) {
-                            tile.setTemperature(temperatureA + temperatureDelta[i][j]);
-                        } else {
-                            if (step == 1) {
-                                // clamp to avoid reaching < 0 temperatures
-                                temperatureDelta[i][j] -= Math.min(temperatureA, temperatureOut[i][j]);
+            for (int type = 0; type < 2; type++) {
+                double[] interactionProbability = state.interactionProbability[type];
+                double[] absorptionProbability = state.absorptionProbability[type];
+
+                for (int dir = 0; dir < 4; dir++) {
+                    int offset = (type * 4 + dir) * cellCount;
+
+                    for (int cell : state.tileCells) {
+                        int neutronNumber = population[offset + cell];
+                        if (neutronNumber == 0) {
+                            continue;
+                        }
+                        population[offset + cell] = 0;
+                        state.flux[type][cell] += neutronNumber;
+
+                        int behaviour = state.behaviour[cell];
+                        if (behaviour != -1) {
+                            int interacting = sampleBinomial(rand, neutronNumber, interactionProbability[behaviour]);
+                            neutronNumber -= interacting;
+
+                            int absorbed = sampleBinomial(rand, interacting, absorptionProbability[behaviour]);
+                            if (absorbed > 0) {
+                                absorb(state, cell, type, absorbed);
                             }
-                            for (int k = 0; k < 4; k++) {
-                                int i2 = i + dX[k];
-                                int j2 = j + dY[k];
-
-                                Optional<INuclearTile> maybeSecondTile = grid.getNuclearTile(i2, j2);
-
-                                if (maybeSecondTile.isPresent()) {
-                                    INuclearTile secondTile = maybeSecondTile.get();
-                                    double temperatureB = secondTile.getTemperature();
-                                    double coeffTransfer = 0.5 * (tile.getHeatTransferCoeff() + secondTile.getHeatTransferCoeff());
-                                    if (temperatureA > temperatureB) {
-                                        if (step == 0) {
-                                            temperatureOut[i][j] += (temperatureA - temperatureB) * coeffTransfer;
-                                        } else {
-                                            double frac = Math.min(1, temperatureA / temperatureOut[i][j]);
-                                            temperatureDelta[i2][j2] += frac * (temperatureA - temperatureB) * coeffTransfer;
-                                        }
-                                    }
-                                } else {
-                                    double temperatureB = 0;
-                                    double coeffTransfer = 0.5 * (tile.getHeatTransferCoeff());
-                                    if (step == 0) {
-                                        temperatureOut[i][j] += (temperatureA - temperatureB) * coeffTransfer;
-                                    }
+
+                            int scattered = interacting - absorbed;
+                            if (type == NuclearGridState.FAST && scattered > 0) {
+                                int slowed = sampleBinomial(rand, scattered, state.slowingProbability[behaviour]);
+                                if (slowed > 0) {
+                                    state.pendingHeat[cell] += slowed * NuclearConstant.EU_FOR_FAST_NEUTRON;
+                                    remaining += moveScattered(state, rand, next, cell, NuclearGridState.THERMAL, slowed);
+                                    scattered -= slowed;
                                 }
                             }
+                            if (scattered > 0) {
+                                remaining += moveScattered(state, rand, next, cell, type, scattered);
+                            }
+                        }
+
+                        if (neutronNumber > 0) {
+                            remaining += move(state, next, cell, type, dir, neutronNumber);
                         }
                     }
                 }
             }
+
+            int[] tmp = population;
+            population = next;
+            next = tmp;
+        }
+
+        if (remaining > 0) {
+            // Same as the walk: neutrons that are still moving after MAX_STEP steps are dropped.
+            Arrays.fill(population, 0);
+        }
+    }
+
+    /**
+     * Spread neutrons uniformly in the 4 directions, in the given cell.
+     */
+    private static int scatter(Random rand, int[] population, int cellCount, int cell, int type, int neutronNumber) {
+        int left = neutronNumber;
+        for (int dir = 0; dir < 3; dir++) {
+            int inDirection = sampleBinomial(rand, left, 1.0 / (4 - dir));
+            population[(type * 4 + dir) * cellCount + cell] += inDirection;
+            left -= inDirection;
         }
+        population[(type * 4 + 3) * cellCount + cell] += left;
+        return neutronNumber;
+    }
+
+    /**
+     * Spread neutrons uniformly in the 4 directions, and move them to the next
+     * cells.
+     *
+     * @return The number of neutrons that didn't escape.
+     */
+    private static int moveScattered(NuclearGridState state, Random rand, int[] next, int cell, int type, int neutronNumber) {
+        int moved = 0;
+        for (int dir = 0; dir < 3; dir++) {
+            int inDirection = sampleBinomial(rand, neutronNumber, 1.0 / (4 - dir));
+            moved += move(state, next, cell, type, dir, inDirection);
+            neutronNumber -= inDirection;
+        }
+        return moved + move(state, next, cell, type, 3, neutronNumber);
+    }
 
-        for (int i = 0; i < sizeX; i++) {
-            for (int j = 0; j < sizeY; j++) {
-                Optional<INuclearTile> maybeTile = grid.getNuclearTile(i, j);
-                if (maybeTile.isPresent()) {
-                    INuclearTile tile = maybeTile.get();
-                    tile.nuclearTick(grid);
+    /**
+     * Move neutrons to the next cell in the given direction.
+     *
+     * @return The number of neutrons that didn't escape.
+     */
+    private static int move(NuclearGridState state, int[] next, int cell, int type, int dir, int neutronNumber) {
+        if (neutronNumber == 0) {
+            return 0;
+        }
+        int cellCount = state.tiles.length;
+        int nextCell = state.neighbours[dir * cellCount + cell];
+        if (nextCell == -1) {
+            state.registerNeutronFate(neutronNumber, type, ESCAPE);
+            return 0;
+        }
+        next[(type * 4 + dir) * cellCount + nextCell] += neutronNumber;
+        return neutronNumber;
+    }
+
+    /**
+     * Sample the number of successes out of n trials with probability p. Small
+     * counts are sampled exactly; large counts use the normal approximation, which
+     * is plenty for neutron populations.
+     */
+    static int sampleBinomial(Random rand, int n, double p) {
+        if (n <= 0 || p <= 0) {
+            return 0;
+        } else if (p >= 1) {
+            return n;
+        } else if (p > 0.5) {
+            return n - sampleBinomial(rand, n, 1 - p);
+        }
+
+        double mean = n * p;
+        if (n <= 16) {
+            int successes = 0;
+            for (int i = 0; i < n; i++) {
+                if (rand.nextDouble() < p) {
+                    successes++;
+                }
+            }
+            return successes;
+        } else if (mean < 16) {
+            // Skip geometrically distributed runs of failures.
+            double logFailure = Math.log1p(-p);
+            int successes = 0;
+            long trials = 0;
+            while (true) {
+                trials += (long) (Math.log(1 - rand.nextDouble()) / logFailure) + 1;
+                if (trials > n) {
+                    return successes;
                 }
+                successes++;
             }
+        } else {
+            long successes = Math.round(mean + Math.sqrt(mean * (1 - p)) * rand.nextGaussian());
+            return (int) Math.max(0, Math.min(n, successes));
         }
-
     }
 
 }
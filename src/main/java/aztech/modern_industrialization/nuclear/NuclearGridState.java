@@ -0,0 +1,294 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.nuclear;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.storage.TransferVariant;
+
+/**
+ * Flat, array-backed view of an {@link INuclearGrid}, used by
+ * {@link NuclearGridHelper} so that the neutron and heat passes don't have to
+ * go through {@code Optional}s and interface calls for every cell and every
+ * neutron step.
+ *
+ * <p>
+ * Cells are indexed by {@code x * sizeY + y}. Components are only looked up
+ * again when the content of a tile changes, and the neutron counters and heat
+ * are accumulated here and only written back to the tiles when needed.
+ */
+public final class NuclearGridState {
+    static final int FAST = 0;
+    static final int THERMAL = 1;
+    private static final NeutronType[] TYPES = { NeutronType.FAST, NeutronType.THERMAL };
+    private static final NeutronFate[] FATES = NeutronFate.values();
+    // Marks a cell whose component was never computed.
+    private static final Object UNKNOWN_COMPONENT = new Object();
+
+    final INuclearGrid grid;
+    final Random random;
+    final int sizeX, sizeY;
+    /**
+     * The tile of every cell, or null if there is no tile.
+     */
+    final INuclearTile[] tiles;
+    /**
+     * The cells that contain a tile, in the iteration order of the original grid.
+     */
+    final int[] tileCells;
+    /**
+     * The neighbour of every cell in each direction, indexed by
+     * {@code dir * cellCount + cell}, or -1 if there is no tile there.
+     */
+    final int[] neighbours;
+
+    final double[] temperature;
+    final double[] heatTransferCoeff;
+    /**
+     * Index in the behaviour table of the component of every cell, or -1 if there
+     * is no component.
+     */
+    final int[] behaviour;
+    /**
+     * The fuel of every cell, or null if the component is not a fuel.
+     */
+    final NuclearFuel[] fuel;
+    private final Object[] componentKey;
+
+    // Pending changes, written back to the tiles by the flush methods.
+    final int[][] flux = new int[2][];
+    final int[][] absorbed = new int[2][];
+    final double[] pendingHeat;
+    private final int[] createdNeutrons = new int[2];
+    private final int[] neutronFates = new int[2 * FATES.length];
+
+    // Scratch arrays of the batched neutron transport.
+    // The populations are indexed by (type * 4 + dir) * cellCount + cell.
+    final int[] sourceNeutrons;
+    final int[] population;
+    final int[] nextPopulation;
+
+    // Scratch arrays of the heat pass.
+    final double[] temperatureOut;
+    final double[] temperatureDelta;
+
+    // Behaviour table, shared by all cells containing the same component.
+    private final Object2IntMap<Object> behaviourIndices = new Object2IntOpenHashMap<>();
+    private int behaviourCount = 0;
+    double[][] interactionProbability = new double[2][4];
+    double[][] absorptionProbability = new double[2][4];
+    double[] slowingProbability = new double[4];
+
+    public NuclearGridState(INuclearGrid grid) {
+        this.grid = grid;
+        this.random = grid.getRandom();
+        this.sizeX = grid.getSizeX();
+        this.sizeY = grid.getSizeY();
+        int size = sizeX * sizeY;
+
+        this.tiles = new INuclearTile[size];
+        int tileCount = 0;
+        for (int x = 0; x < sizeX; ++x) {
+            for (int y = 0; y < sizeY; ++y) {
+                Optional<INuclearTile> maybeTile = grid.getNuclearTile(x, y);
+                if (maybeTile.isPresent()) {
+                    tiles[x * sizeY + y] = maybeTile.get();
+                    tileCount++;
+                }
+            }
+        }
+        this.tileCells = new int[tileCount];
+        for (int cell = 0, i = 0; cell < size; ++cell) {
+            if (tiles[cell] != null) {
+                tileCells[i++] = cell;
+            }
+        }
+
+        this.neighbours = new int[4 * size];
+        for (int cell = 0; cell < size; ++cell) {
+            int x = cell / sizeY, y = cell % sizeY;
+            for (int dir = 0; dir < 4; ++dir) {
+                neighbours[dir * size + cell] = cellAt(x + NuclearGridHelper.dX[dir], y + NuclearGridHelper.dY[dir]);
+            }
+        }
+
+        this.temperature = new double[size];
+        this.heatTransferCoeff = new double[size];
+        this.behaviour = new int[size];
+        this.fuel = new NuclearFuel[size];
+        this.componentKey = new Object[size];
+        for (int type = 0; type < 2; ++type) {
+            flux[type] = new int[size];
+            absorbed[type] = new int[size];
+        }
+        this.pendingHeat = new double[size];
+        this.sourceNeutrons = new int[size];
+        this.population = new int[8 * size];
+        this.nextPopulation = new int[8 * size];
+        this.temperatureOut = new double[size];
+        this.temperatureDelta = new double[size];
+
+        behaviourIndices.defaultReturnValue(-1);
+        Arrays.fill(behaviour, -1);
+        Arrays.fill(componentKey, UNKNOWN_COMPONENT);
+    }
+
+    /**
+     * Return the cell at the given position, or -1 if there is no tile there.
+     */
+    int cellAt(int x, int y) {
+        if (x < 0 || x >= sizeX || y < 0 || y >= sizeY) {
+            return -1;
+        }
+        int cell = x * sizeY + y;
+        return tiles[cell] != null ? cell : -1;
+    }
+
+    /**
+     * Update the cached component data of all tiles.
+     */
+    void refreshComponents() {
+        for (int cell : tileCells) {
+            refreshComponent(cell);
+        }
+    }
+
+    /**
+     * Update the cached component data of a tile, only querying the component if
+     * the content of the tile changed.
+     */
+    void refreshComponent(int cell) {
+        INuclearTile tile = tiles[cell];
+        TransferVariant<?> variant = tile.getVariant();
+        Object key = null;
+        if (!variant.isBlank() && tile.getVariantAmount() > 0) {
+            // The NBT of fuel items changes every tick, but their behaviour doesn't.
+            key = variant instanceof ItemVariant itemVariant ? itemVariant.getItem() : variant;
+        }
+        if (Objects.equals(key, componentKey[cell])) {
+            return;
+        }
+        componentKey[cell] = key;
+
+        Optional<INuclearComponent> maybeComponent = key == null ? Optional.empty() : tile.getComponent();
+        if (maybeComponent.isPresent()) {
+            INuclearComponent component = maybeComponent.get();
+            behaviour[cell] = getBehaviourIndex(key, component.getNeutronBehaviour());
+            fuel[cell] = component instanceof NuclearFuel nuclearFuel ? nuclearFuel : null;
+        } else {
+            behaviour[cell] = -1;
+            fuel[cell] = null;
+        }
+        heatTransferCoeff[cell] = tile.getHeatTransferCoeff();
+    }
+
+    private int getBehaviourIndex(Object key, INeutronBehaviour neutronBehaviour) {
+        int index = behaviourIndices.getInt(key);
+        if (index == -1) {
+            index = behaviourCount++;
+            if (index == slowingProbability.length) {
+                int newLength = 2 * index;
+                for (int type = 0; type < 2; ++type) {
+                    interactionProbability[type] = Arrays.copyOf(interactionProbability[type], newLength);
+                    absorptionProbability[type] = Arrays.copyOf(absorptionProbability[type], newLength);
+                }
+                slowingProbability = Arrays.copyOf(slowingProbability, newLength);
+            }
+            for (int type = 0; type < 2; ++type) {
+                interactionProbability[type][index] = neutronBehaviour.interactionTotalProbability(TYPES[type]);
+                absorptionProbability[type][index] = neutronBehaviour.interactionRelativeProbability(TYPES[type], NeutronInteraction.ABSORPTION);
+            }
+            slowingProbability[index] = neutronBehaviour.neutronSlowingProbability();
+            behaviourIndices.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Read the temperature of all tiles.
+     */
+    void readTemperatures() {
+        for (int cell : tileCells) {
+            temperature[cell] = tiles[cell].getTemperature();
+        }
+    }
+
+    void registerNeutronCreation(int neutronNumber, int type) {
+        createdNeutrons[type] += neutronNumber;
+    }
+
+    void registerNeutronFate(int neutronNumber, int type, NeutronFate fate) {
+        neutronFates[type * FATES.length + fate.ordinal()] += neutronNumber;
+    }
+
+    /**
+     * Write the pending heat of a cell back to its tile.
+     */
+    void flushHeat(int cell) {
+        if (pendingHeat[cell] > 0) {
+            tiles[cell].putHeat(pendingHeat[cell]);
+            pendingHeat[cell] = 0;
+        }
+    }
+
+    /**
+     * Write all the pending neutron counters and heat back to the tiles and the
+     * grid.
+     */
+    void flushNeutrons() {
+        for (int cell : tileCells) {
+            INuclearTile tile = tiles[cell];
+            for (int type = 0; type < 2; ++type) {
+                if (flux[type][cell] != 0) {
+                    tile.addNeutronsToFlux(flux[type][cell], TYPES[type]);
+                    flux[type][cell] = 0;
+                }
+                if (absorbed[type][cell] != 0) {
+                    tile.absorbNeutrons(absorbed[type][cell], TYPES[type]);
+                    absorbed[type][cell] = 0;
+                }
+            }
+            flushHeat(cell);
+        }
+
+        for (int type = 0; type < 2; ++type) {
+            if (createdNeutrons[type] != 0) {
+                grid.registerNeutronCreation(createdNeutrons[type], TYPES[type]);
+                createdNeutrons[type] = 0;
+            }
+            for (int fate = 0; fate < FATES.length; ++fate) {
+                int index = type * FATES.length + fate;
+                if (neutronFates[index] != 0) {
+                    grid.registerNeutronFate(neutronFates[index], TYPES[type], FATES[fate]);
+                    neutronFates[index] = 0;
+                }
+            }
+        }
+    }
+}
@@ -58,7 +58,6 @@ import net.minecraft.client.texture.SpriteAtlasTexture;
 import net.minecraft.client.util.SpriteIdentifier;
 import net.minecraft.item.Item;
 import net.minecraft.screen.ScreenHandlerType;
-import net.minecraft.server.world.ServerWorld;
 import net.minecraft.tag.Tag;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
@@ -119,11 +118,7 @@ public class MIPipes {
             registerItemPipeType(color);
         }
 
-        ServerTickEvents.START_SERVER_TICK.register(server -> {
-            for (ServerWorld world : server.getWorlds()) {
-                PipeNetworks.get(world).onServerTickStart();
-            }
-        });
+        ServerTickEvents.END_WORLD_TICK.register(world -> PipeNetworks.get(world).onWorldTickEnd(world));
 
         registerPackets();
     }
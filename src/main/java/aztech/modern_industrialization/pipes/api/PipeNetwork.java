@@ -23,11 +23,19 @@
  */
 package aztech.modern_industrialization.pipes.api;
 
-import java.util.HashMap;
-import java.util.Map;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import it.unimi.dsi.fastutil.objects.ObjectIterable;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A pipe network. It is very important that you create a new empty data object
@@ -37,14 +45,40 @@ public abstract class PipeNetwork {
     protected int id;
     public PipeNetworkManager manager;
     public PipeNetworkData data;
-    public Map<BlockPos, PipeNetworkNode> nodes = new HashMap<>();
-    public boolean ticked = false;
+    /**
+     * The nodes of the network, by {@link net.minecraft.util.math.BlockPos#asLong}.
+     * A node is null if it is not loaded. Only the manager modifies it, use
+     * {@link #getNodes} or {@link #nodeEntries} to read it.
+     */
+    final Long2ObjectOpenHashMap<PipeNetworkNode> nodes = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<PipeNetworkNode> nodesView = Long2ObjectMaps.unmodifiable(nodes);
+    /**
+     * The positions of the non-null {@link #nodes}, kept up to date by
+     * {@link #putNode} and {@link #removeNode}.
+     */
+    private final LongOpenHashSet loadedNodes = new LongOpenHashSet();
 
     public PipeNetwork(int id, PipeNetworkData data) {
         this.id = id;
         this.data = data;
     }
 
+    /**
+     * Return a read-only view of the nodes of the network, by
+     * {@link net.minecraft.util.math.BlockPos#asLong}. A node is null if it is not loaded.
+     */
+    public Long2ObjectMap<PipeNetworkNode> getNodes() {
+        return nodesView;
+    }
+
+    /**
+     * Iterate the nodes of the network without allocating an entry per node. The
+     * entries must not be modified.
+     */
+    protected ObjectIterable<Long2ObjectMap.Entry<PipeNetworkNode>> nodeEntries() {
+        return Long2ObjectMaps.fastIterable(nodes);
+    }
+
     public void fromTag(NbtCompound tag) {
         id = tag.getInt("id");
         data.fromTag(tag.getCompound("data"));
@@ -56,10 +90,87 @@ public abstract class PipeNetwork {
         return tag;
     }
 
+    /**
+     * Called once per world tick by {@link PipeNetworkManager#tickNetworks} if at
+     * least one loaded node is in a ticking chunk.
+     */
     public void tick(World world) {
 
     }
 
+    void putNode(long pos, @Nullable PipeNetworkNode node) {
+        nodes.put(pos, node);
+        if (node != null) {
+            loadedNodes.add(pos);
+        } else {
+            loadedNodes.remove(pos);
+        }
+    }
+
+    @Nullable
+    PipeNetworkNode removeNode(long pos) {
+        loadedNodes.remove(pos);
+        return nodes.remove(pos);
+    }
+
+    /**
+     * Return the positions of the loaded nodes of the network.
+     */
+    public LongSet getLoadedNodes() {
+        return LongSets.unmodifiable(loadedNodes);
+    }
+
+    /**
+     * Return true if at least one loaded node of the network is in a ticking
+     * chunk. Networks without loaded nodes are skipped without visiting any
+     * position.
+     */
+    public boolean hasTickingNode(ServerWorld world) {
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        LongIterator it = loadedNodes.iterator();
+        while (it.hasNext()) {
+            if (world.method_37117(pos.set(it.nextLong()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * First phase of a parallel tick. Networks that support the parallel mode
+     * schedule themselves from {@link #tick}, and the three phases run at the end
+     * of the world tick. This phase may run on a worker thread, concurrently with
+     * the same phase of other networks, so it must only access the state of this
+     * network and its nodes.
+     */
+    public void prepareTick() {
+
+    }
+
+    /**
+     * Second phase of a parallel tick, where the network interacts with the world.
+     * It always runs on the server thread, and networks are committed in the order
+     * in which they were scheduled.
+     */
+    public void commitTick(World world) {
+
+    }
+
+    /**
+     * Last phase of a parallel tick. Same rules as {@link #prepareTick}.
+     */
+    public void finishTick() {
+
+    }
+
+    /**
+     * Called by the manager after nodes were added to or removed from this
+     * network, or after a node was loaded or unloaded.
+     */
+    public void onNodesChanged() {
+
+    }
+
     /**
      * Allow merging networks when the player explicitly requests to do so. When
      * this function is called, it must return a new PipeNetworkData without
@@ -25,17 +25,26 @@ package aztech.modern_industrialization.pipes.api;
 
 import aztech.modern_industrialization.pipes.MIPipes;
 import aztech.modern_industrialization.util.NbtHelper;
+import it.unimi.dsi.fastutil.longs.*;
 import java.util.*;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtList;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 
+/**
+ * The pipes of one type in a world, and how they form networks. Positions are
+ * stored as {@link BlockPos#asLong} and links as a bitmask of
+ * {@link Direction#getId}, to keep the memory usage low with millions of pipes.
+ */
 public class PipeNetworkManager {
-    private Map<BlockPos, PipeNetwork> networkByBlock = new HashMap<>();
-    private Map<BlockPos, Set<Direction>> links = new HashMap<>(); // TODO: (de)serialize
+    private static final boolean CHECK_STATE_COHERENCE = Boolean.getBoolean("modern_industrialization.checkPipeNetworks");
+    private final Long2ObjectOpenHashMap<PipeNetwork> networkByBlock = new Long2ObjectOpenHashMap<>();
+    private final Long2ByteOpenHashMap links = new Long2ByteOpenHashMap();
     private Set<PipeNetwork> networks = new HashSet<>();
+    private final List<PipeNetwork> tickedNetworks = new ArrayList<>();
     private int nextNetworkId = 0;
     private PipeNetworkType type;
 
@@ -43,6 +52,10 @@ public class PipeNetworkManager {
         this.type = type;
     }
 
+    private static byte linkBit(Direction direction) {
+        return (byte) (1 << direction.getId());
+    }
+
     /**
      * Add a network link and merge networks if necessary. Both the node at pos and
      * the node at pos + direction must exist in the network.
@@ -54,28 +67,35 @@ public class PipeNetworkManager {
             return;
 
         // Add links
-        BlockPos otherPos = pos.offset(direction);
-        links.get(pos).add(direction);
-        links.get(otherPos).add(direction.getOpposite());
+        long posKey = pos.asLong();
+        long otherPosKey = BlockPos.offset(posKey, direction);
+        links.put(posKey, (byte) (links.get(posKey) | linkBit(direction)));
+        links.put(otherPosKey, (byte) (links.get(otherPosKey) | linkBit(direction.getOpposite())));
 
-        // If the networks are different, we merge all nodes into `network`. We don't
+        // If the networks are different, we merge all nodes of the smaller network into
+        // the bigger one, so that every node is moved O(log n) times at most. We don't
         // change other links.
-        PipeNetwork network = networkByBlock.get(pos);
-        PipeNetwork otherNetwork = networkByBlock.get(otherPos);
+        PipeNetwork network = networkByBlock.get(posKey);
+        PipeNetwork otherNetwork = networkByBlock.get(otherPosKey);
         if (network != otherNetwork) {
-            if (!network.data.equals(otherNetwork.data)) {
-                network.data = network.merge(otherNetwork);
+            PipeNetworkData mergedData = network.data.equals(otherNetwork.data) ? network.data : network.merge(otherNetwork);
+            if (network.nodes.size() < otherNetwork.nodes.size()) {
+                PipeNetwork tmp = network;
+                network = otherNetwork;
+                otherNetwork = tmp;
             }
-            for (Map.Entry<BlockPos, PipeNetworkNode> entry : otherNetwork.nodes.entrySet()) {
+            network.data = mergedData;
+            for (Long2ObjectMap.Entry<PipeNetworkNode> entry : Long2ObjectMaps.fastIterable(otherNetwork.nodes)) {
                 PipeNetworkNode node = entry.getValue();
-                BlockPos nodePos = entry.getKey();
+                long nodePos = entry.getLongKey();
                 if (node != null) {
                     node.network = network;
                 }
                 networkByBlock.put(nodePos, network);
-                network.nodes.put(nodePos, node);
+                network.putNode(nodePos, node);
             }
             networks.remove(otherNetwork);
+            network.onNodesChanged();
         }
         checkStateCoherence();
     }
@@ -89,64 +109,106 @@ public class PipeNetworkManager {
             return;
 
         // Remove links
-        BlockPos otherPos = pos.offset(direction);
-        links.get(pos).remove(direction);
-        links.get(otherPos).remove(direction.getOpposite());
-
-        // Run a DFS to mark all disconnected nodes.
-        PipeNetwork network = networkByBlock.get(pos);
-        Map<BlockPos, PipeNetworkNode> unvisitedNodes = new HashMap<>(network.nodes);
-
-        class Dfs {
-            private void dfs(BlockPos currentPos) {
-                // warning: don't try to use the return value of Map#remove, because it might be
-                // null if the node is not loaded.
-                if (!unvisitedNodes.containsKey(currentPos)) {
-                    return;
-                }
-                unvisitedNodes.remove(currentPos);
-                for (Direction direction : links.get(currentPos)) {
-                    dfs(currentPos.offset(direction));
-                }
+        long posKey = pos.asLong();
+        long otherPosKey = BlockPos.offset(posKey, direction);
+        links.put(posKey, (byte) (links.get(posKey) & ~linkBit(direction)));
+        links.put(otherPosKey, (byte) (links.get(otherPosKey) & ~linkBit(direction.getOpposite())));
+
+        // Search both sides at the same time, one node per side and per step. If the
+        // searches meet, the network is still connected. Otherwise, the search that
+        // runs out of nodes first has found the smaller component, which is moved to a
+        // new network. Either way, the work is bounded by the size of the smaller
+        // component.
+        PipeNetwork network = networkByBlock.get(posKey);
+        ComponentSearch search = new ComponentSearch(posKey);
+        ComponentSearch otherSearch = new ComponentSearch(otherPosKey);
+        while (true) {
+            if (search.isFinished()) {
+                moveToNewNetwork(network, search.visited);
+                break;
             }
+            if (otherSearch.isFinished()) {
+                moveToNewNetwork(network, otherSearch.visited);
+                break;
+            }
+            if (search.step(otherSearch) || otherSearch.step(search)) {
+                break;
+            }
+        }
+        checkStateCoherence();
+    }
+
+    /**
+     * Iterative BFS over the links, to avoid overflowing the stack on long pipe
+     * lines.
+     */
+    private class ComponentSearch {
+        private final LongOpenHashSet visited = new LongOpenHashSet();
+        private final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+
+        private ComponentSearch(long start) {
+            visited.add(start);
+            queue.enqueue(start);
         }
 
-        // Try to put all nodes in the current network
-        Dfs dfs = new Dfs();
-        dfs.dfs(pos);
+        private boolean isFinished() {
+            return queue.isEmpty();
+        }
 
-        // If it was not possible, create a new network and transfer all unvisitedNodes
-        // to it.
-        if (unvisitedNodes.size() > 0) {
-            PipeNetwork newNetwork = createNetwork(network.data.clone());
-            for (Map.Entry<BlockPos, PipeNetworkNode> entry : unvisitedNodes.entrySet()) {
-                PipeNetworkNode node = entry.getValue();
-                BlockPos nodePos = entry.getKey();
-                if (node != null) {
-                    node.network = newNetwork;
+        /**
+         * Visit the next node.
+         * 
+         * @return true if a node visited by the other search was reached.
+         */
+        private boolean step(ComponentSearch other) {
+            long currentPos = queue.dequeueLong();
+            byte currentLinks = links.get(currentPos);
+            for (Direction direction : Direction.values()) {
+                if ((currentLinks & linkBit(direction)) != 0) {
+                    long nextPos = BlockPos.offset(currentPos, direction);
+                    if (other.visited.contains(nextPos)) {
+                        return true;
+                    }
+                    if (visited.add(nextPos)) {
+                        queue.enqueue(nextPos);
+                    }
                 }
-                networkByBlock.put(nodePos, newNetwork);
-                newNetwork.nodes.put(nodePos, node);
-                network.nodes.remove(nodePos);
             }
+            return false;
         }
-        checkStateCoherence();
+    }
+
+    private void moveToNewNetwork(PipeNetwork network, LongSet positions) {
+        PipeNetwork newNetwork = createNetwork(network.data.clone());
+        LongIterator it = positions.iterator();
+        while (it.hasNext()) {
+            long nodePos = it.nextLong();
+            // warning: the node might be null if it is not loaded.
+            PipeNetworkNode node = network.removeNode(nodePos);
+            if (node != null) {
+                node.network = newNetwork;
+            }
+            networkByBlock.put(nodePos, newNetwork);
+            newNetwork.putNode(nodePos, node);
+        }
+        network.onNodesChanged();
+        newNetwork.onNodesChanged();
     }
 
     /**
      * Check if a link exists. A node must exist at pos.
      */
     public boolean hasLink(BlockPos pos, Direction direction) {
-        return links.get(pos).contains(direction);
+        return (links.get(pos.asLong()) & linkBit(direction)) != 0;
     }
 
     /**
      * Check if a link would be possible. A node must exist at pos.
      */
     public boolean canLink(BlockPos pos, Direction direction, boolean forceLink) {
-        BlockPos otherPos = pos.offset(direction);
-        PipeNetwork network = networkByBlock.get(pos);
-        PipeNetwork otherNetwork = networkByBlock.get(otherPos);
+        long posKey = pos.asLong();
+        PipeNetwork network = networkByBlock.get(posKey);
+        PipeNetwork otherNetwork = networkByBlock.get(BlockPos.offset(posKey, direction));
         return otherNetwork != null && (network.data.equals(otherNetwork.data) || forceLink && network.merge(otherNetwork) != null);
     }
 
@@ -154,16 +216,17 @@ public class PipeNetworkManager {
      * Add a node and create a new network for it.
      */
     public void addNode(PipeNetworkNode node, BlockPos pos, PipeNetworkData data) {
-        if (networkByBlock.containsKey(pos))
+        long posKey = pos.asLong();
+        if (networkByBlock.containsKey(posKey))
             throw new IllegalArgumentException("Cannot add a node that is already in the network.");
 
         PipeNetwork network = createNetwork(data.clone());
         if (node != null) {
             node.network = network;
         }
-        networkByBlock.put(pos.toImmutable(), network);
-        network.nodes.put(pos.toImmutable(), node);
-        links.put(pos.toImmutable(), new HashSet<>());
+        networkByBlock.put(posKey, network);
+        network.putNode(posKey, node);
+        links.put(posKey, (byte) 0);
         checkStateCoherence();
     }
 
@@ -175,9 +238,9 @@ public class PipeNetworkManager {
             removeLink(pos, direction);
         }
 
-        PipeNetwork network = networkByBlock.remove(pos);
+        PipeNetwork network = networkByBlock.remove(pos.asLong());
         networks.remove(network);
-        links.remove(pos);
+        links.remove(pos.asLong());
         checkStateCoherence();
     }
 
@@ -185,7 +248,7 @@ public class PipeNetworkManager {
      * Should be called when a node is loaded, it will link the node to its network.
      */
     public void nodeLoaded(PipeNetworkNode node, BlockPos pos) {
-        PipeNetwork network = networkByBlock.get(pos);
+        PipeNetwork network = networkByBlock.get(pos.asLong());
         if (network == null) {
             // The network is null! That probably means that the node doesn't exist, e.g.
             // because a pipe was moved with Carrier.
@@ -198,7 +261,8 @@ public class PipeNetworkManager {
             }
         } else {
             node.network = network;
-            network.nodes.put(pos.toImmutable(), node);
+            network.putNode(pos.asLong(), node);
+            network.onNodesChanged();
         }
         checkStateCoherence();
     }
@@ -208,7 +272,8 @@ public class PipeNetworkManager {
      * network.
      */
     public void nodeUnloaded(PipeNetworkNode node, BlockPos pos) {
-        node.network.nodes.put(pos.toImmutable(), null);
+        node.network.putNode(pos.asLong(), null);
+        node.network.onNodesChanged();
         checkStateCoherence();
     }
 
@@ -225,14 +290,27 @@ public class PipeNetworkManager {
     }
 
     /**
-     * Mark the networks as unticked.
+     * Tick every network that has a loaded node in a ticking chunk. The ticked
+     * networks can be retrieved with {@link #getTickedNetworks} until the next
+     * call.
      */
-    public void markNetworksAsUnticked() {
+    public void tickNetworks(ServerWorld world) {
+        tickedNetworks.clear();
         for (PipeNetwork network : networks) {
-            network.ticked = false;
+            if (network.hasTickingNode(world)) {
+                tickedNetworks.add(network);
+            }
+        }
+        // Iterate over a copy, in case a network tick causes networks to be added or removed.
+        for (PipeNetwork network : tickedNetworks) {
+            network.tick(world);
         }
     }
 
+    public List<PipeNetwork> getTickedNetworks() {
+        return Collections.unmodifiableList(tickedNetworks);
+    }
+
     public void fromNbt(NbtCompound tag) {
         // networks
         NbtList networksTag = tag.getList("networks", new NbtCompound().getType());
@@ -251,10 +329,11 @@ public class PipeNetworkManager {
         int[] data = tag.getIntArray("networkByBlock");
         for (int i = 0; i < data.length / 5; i++) {
             PipeNetwork network = networkIds.get(data[5 * i + 3]);
-            BlockPos pos = new BlockPos(data[5 * i], data[5 * i + 1], data[5 * i + 2]);
+            long pos = BlockPos.asLong(data[5 * i], data[5 * i + 1], data[5 * i + 2]);
             networkByBlock.put(pos, network);
-            network.nodes.put(pos, null);
-            links.put(pos, new HashSet<Direction>(Arrays.asList(NbtHelper.decodeDirections((byte) data[5 * i + 4]))));
+            network.putNode(pos, null);
+            // Same encoding as NbtHelper#encodeDirections
+            links.put(pos, (byte) data[5 * i + 4]);
         }
 
         // nextNetworkId
@@ -276,12 +355,13 @@ public class PipeNetworkManager {
         // integers: x, y, z, network id, encoded links
         int[] networkByBlockData = new int[networkByBlock.size() * 5];
         int i = 0;
-        for (Map.Entry<BlockPos, PipeNetwork> entry : networkByBlock.entrySet()) {
-            networkByBlockData[i++] = entry.getKey().getX();
-            networkByBlockData[i++] = entry.getKey().getY();
-            networkByBlockData[i++] = entry.getKey().getZ();
+        for (Long2ObjectMap.Entry<PipeNetwork> entry : Long2ObjectMaps.fastIterable(networkByBlock)) {
+            long pos = entry.getLongKey();
+            networkByBlockData[i++] = BlockPos.unpackLongX(pos);
+            networkByBlockData[i++] = BlockPos.unpackLongY(pos);
+            networkByBlockData[i++] = BlockPos.unpackLongZ(pos);
             networkByBlockData[i++] = entry.getValue().id;
-            networkByBlockData[i++] = NbtHelper.encodeDirections(links.get(entry.getKey()));
+            networkByBlockData[i++] = links.get(pos);
         }
         tag.putIntArray("networkByBlock", networkByBlockData);
 
@@ -295,28 +375,53 @@ public class PipeNetworkManager {
         return type;
     }
 
+    public Set<PipeNetwork> getNetworks() {
+        return Collections.unmodifiableSet(networks);
+    }
+
     public Set<Direction> getNodeLinks(BlockPos pos) {
-        return new HashSet<>(links.get(pos));
+        Set<Direction> nodeLinks = EnumSet.noneOf(Direction.class);
+        Collections.addAll(nodeLinks, NbtHelper.decodeDirections(links.get(pos.asLong())));
+        return nodeLinks;
     }
 
     /**
-     * Check all internal state coherence for debugging purposes.
+     * Check all internal state coherence for debugging purposes. This is linear in
+     * the number of pipes, so it is only enabled with
+     * {@code -Dmodern_industrialization.checkPipeNetworks=true}.
      */
     public void checkStateCoherence() {
+        if (CHECK_STATE_COHERENCE) {
+            forceCheckStateCoherence();
+        }
+    }
+
+    public void forceCheckStateCoherence() {
         customAssert(networkByBlock.keySet().equals(links.keySet()));
-        for (Map.Entry<BlockPos, PipeNetwork> entry : networkByBlock.entrySet()) {
+        for (Long2ObjectMap.Entry<PipeNetwork> entry : Long2ObjectMaps.fastIterable(networkByBlock)) {
             customAssert(networks.contains(entry.getValue()));
-            PipeNetworkNode node = entry.getValue().nodes.get(entry.getKey());
+            PipeNetworkNode node = entry.getValue().nodes.get(entry.getLongKey());
             customAssert(node == null || node.network == entry.getValue());
         }
-        for (Map.Entry<BlockPos, Set<Direction>> entry : links.entrySet()) {
-            customAssert(entry.getValue() != null);
+        for (Long2ByteMap.Entry entry : Long2ByteMaps.fastIterable(links)) {
+            for (Direction direction : Direction.values()) {
+                if ((entry.getByteValue() & linkBit(direction)) != 0) {
+                    long otherPos = BlockPos.offset(entry.getLongKey(), direction);
+                    customAssert((links.get(otherPos) & linkBit(direction.getOpposite())) != 0);
+                }
+            }
         }
         for (PipeNetwork network : networks) {
-            for (Map.Entry<BlockPos, PipeNetworkNode> entry : network.nodes.entrySet()) {
+            int loadedNodes = 0;
+            for (Long2ObjectMap.Entry<PipeNetworkNode> entry : Long2ObjectMaps.fastIterable(network.nodes)) {
                 customAssert(entry.getValue() == null || entry.getValue().network == network);
-                customAssert(networkByBlock.get(entry.getKey()) == network);
+                customAssert(networkByBlock.get(entry.getLongKey()) == network);
+                if (entry.getValue() != null) {
+                    customAssert(network.getLoadedNodes().contains(entry.getLongKey()));
+                    loadedNodes++;
+                }
             }
+            customAssert(network.getLoadedNodes().size() == loadedNodes);
         }
     }
 
@@ -71,8 +71,14 @@ public abstract class PipeNetworkNode {
         return network.manager;
     }
 
-    public void tick(World world, BlockPos pos) {
-        network.tick(world);
+    /**
+     * Return true if the state saved by {@link #toTag} may have changed since the
+     * last call, and reset the dirty state. Nodes that don't track their changes
+     * are always considered dirty. Pipe block entities don't tick: this is checked
+     * for the loaded nodes of a network after the network ticked.
+     */
+    public boolean pollDirty() {
+        return true;
     }
 
     public NbtCompound writeCustomData() {
@@ -80,7 +86,8 @@ public abstract class PipeNetworkNode {
     }
 
     /**
-     * Return whether the network node should be synced.
+     * Return whether the network node should be synced, and reset the sync state.
+     * Checked at the same time as {@link #pollDirty}.
      */
     public boolean shouldSync() {
         return false;
@@ -23,19 +23,29 @@
  */
 package aztech.modern_industrialization.pipes.electricity;
 
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.api.energy.CableTier;
 import aztech.modern_industrialization.api.energy.EnergyExtractable;
 import aztech.modern_industrialization.api.energy.EnergyInsertable;
 import aztech.modern_industrialization.pipes.api.PipeNetwork;
 import aztech.modern_industrialization.pipes.api.PipeNetworkData;
 import aztech.modern_industrialization.pipes.api.PipeNetworkNode;
+import aztech.modern_industrialization.pipes.impl.PipeNetworks;
 import aztech.modern_industrialization.util.Simulation;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
 import java.util.*;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
 public class ElectricityNetwork extends PipeNetwork {
     final CableTier tier;
+    // State of the current tick, see prepareTick, commitTick and finishTick.
+    private final LongList loadedPositions = new LongArrayList();
+    private final List<ElectricityNetworkNode> loadedNodes = new ArrayList<>();
+    private long networkAmount;
 
     public ElectricityNetwork(int id, PipeNetworkData data, CableTier tier) {
         super(id, data == null ? new ElectricityNetworkData() : data);
@@ -44,45 +54,63 @@ public class ElectricityNetwork extends PipeNetwork {
 
     @Override
     public void tick(World world) {
-        // Only tick once
-        if (ticked)
-            return;
-        ticked = true;
 
-        // Gather targets
-        List<EnergyInsertable> insertables = new ArrayList<>();
-        List<EnergyExtractable> extractables = new ArrayList<>();
-        long networkAmount = 0;
-        int loadedNodeCount = 0;
-        for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
+        if (MIConfig.getConfig().parallelPipeNetworks) {
+            PipeNetworks.get((ServerWorld) world).scheduleParallelTick(this);
+        } else {
+            prepareTick();
+            commitTick(world);
+            finishTick();
+        }
+    }
+
+    @Override
+    public void prepareTick() {
+        loadedPositions.clear();
+        loadedNodes.clear();
+        networkAmount = 0;
+        for (Long2ObjectMap.Entry<PipeNetworkNode> entry : nodeEntries()) {
             if (entry.getValue() != null) {
                 ElectricityNetworkNode node = (ElectricityNetworkNode) entry.getValue();
-                node.appendAttributes(world, entry.getKey(), insertables, extractables);
+                loadedPositions.add(entry.getLongKey());
+                loadedNodes.add(node);
                 networkAmount += node.eu;
-                loadedNodeCount++;
             }
         }
+    }
+
+    @Override
+    public void commitTick(World world) {
+        // Gather targets
+        List<EnergyInsertable> insertables = new ArrayList<>();
+        List<EnergyExtractable> extractables = new ArrayList<>();
+        for (int i = 0; i < loadedNodes.size(); ++i) {
+            loadedNodes.get(i).appendAttributes(world, BlockPos.fromLong(loadedPositions.getLong(i)), insertables, extractables);
+        }
 
         // Filter targets
         insertables.removeIf(insertable -> !insertable.canInsert(tier));
         extractables.removeIf(extractable -> !extractable.canExtract(tier));
 
         // Do the transfer
-        long networkCapacity = loadedNodeCount * tier.getMaxTransfer();
+        long networkCapacity = loadedNodes.size() * tier.getMaxTransfer();
         long extractMaxAmount = Math.min(tier.getMaxTransfer(), networkCapacity - networkAmount);
         networkAmount += transferForTargets(EnergyExtractable::extractEnergy, extractables, extractMaxAmount);
         long insertMaxAmount = Math.min(tier.getMaxTransfer(), networkAmount);
         networkAmount -= transferForTargets(EnergyInsertable::insertEnergy, insertables, insertMaxAmount);
+    }
 
+    @Override
+    public void finishTick() {
         // Split energy evenly across the nodes
-        for (PipeNetworkNode node : nodes.values()) {
-            if (node != null) {
-                ElectricityNetworkNode electricityNode = (ElectricityNetworkNode) node;
-                electricityNode.eu = networkAmount / loadedNodeCount;
-                networkAmount -= electricityNode.eu;
-                --loadedNodeCount;
-            }
+        int loadedNodeCount = loadedNodes.size();
+        for (ElectricityNetworkNode node : loadedNodes) {
+            node.eu = networkAmount / loadedNodeCount;
+            networkAmount -= node.eu;
+            --loadedNodeCount;
         }
+        loadedPositions.clear();
+        loadedNodes.clear();
     }
 
     /**
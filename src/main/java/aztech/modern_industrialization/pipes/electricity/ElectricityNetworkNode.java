@@ -44,6 +44,7 @@ public class ElectricityNetworkNode extends PipeNetworkNode {
     private List<Direction> connections = new ArrayList<>();
     private final List<MIBlockApiCache<EnergyMoveable, @NotNull Direction>> caches = new ArrayList<>();
     long eu = 0;
+    private long savedEu = 0;
 
     public void appendAttributes(World world, BlockPos pos, List<EnergyInsertable> insertables, List<EnergyExtractable> extractables) {
         if (caches.size() != connections.size()) {
@@ -136,6 +137,17 @@ public class ElectricityNetworkNode extends PipeNetworkNode {
         connections = new ArrayList<>(Arrays.asList(NbtHelper.decodeDirections(tag.getByte("connections"))));
         caches.clear();
         eu = tag.getLong("eu");
+        savedEu = eu;
+    }
+
+    @Override
+    public boolean pollDirty() {
+        // Connection changes already mark the pipe dirty, only the network tick needs to be tracked.
+        if (savedEu == eu) {
+            return false;
+        }
+        savedEu = eu;
+        return true;
     }
 
     private boolean canConnect(World world, BlockPos pos, Direction direction) {
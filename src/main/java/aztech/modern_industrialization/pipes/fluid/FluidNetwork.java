@@ -23,23 +23,33 @@
  */
 package aztech.modern_industrialization.pipes.fluid;
 
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.pipes.api.PipeNetwork;
 import aztech.modern_industrialization.pipes.api.PipeNetworkData;
 import aztech.modern_industrialization.pipes.api.PipeNetworkNode;
+import aztech.modern_industrialization.pipes.impl.PipeNetworks;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
 import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
 import net.fabricmc.fabric.api.transfer.v1.transaction.TransactionContext;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
 public class FluidNetwork extends PipeNetwork {
     final int nodeCapacity;
+    // State of the current tick, see prepareTick, commitTick and finishTick.
+    private final LongList loadedPositions = new LongArrayList();
+    private final List<FluidNetworkNode> loadedNodes = new ArrayList<>();
+    private long networkAmount;
+    private boolean rebalance;
 
     public FluidNetwork(int id, PipeNetworkData data, int nodeCapacity) {
         super(id, data == null ? new FluidNetworkData(FluidVariant.blank()) : data);
@@ -48,29 +58,44 @@ public class FluidNetwork extends PipeNetwork {
 
     @Override
     public void tick(World world) {
-        // Only tick once
-        if (ticked)
-            return;
-        ticked = true;
 
-        // Gather targets and hopefully set fluid
-        List<FluidTarget> targets = new ArrayList<>();
-        long networkAmount = 0;
-        int loadedNodeCount = 0;
-        for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
+        if (MIConfig.getConfig().parallelPipeNetworks) {
+            PipeNetworks.get((ServerWorld) world).scheduleParallelTick(this);
+        } else {
+            prepareTick();
+            commitTick(world);
+            finishTick();
+        }
+    }
+
+    @Override
+    public void prepareTick() {
+        loadedPositions.clear();
+        loadedNodes.clear();
+        networkAmount = 0;
+        for (Long2ObjectMap.Entry<PipeNetworkNode> entry : nodeEntries()) {
             if (entry.getValue() != null) {
                 FluidNetworkNode fluidNode = (FluidNetworkNode) entry.getValue();
-                fluidNode.gatherTargetsAndPickFluid(world, entry.getKey(), targets);
-                // Amount goes after the gather...() call because the gather...() call cleans
-                // invalid amounts.
+                fluidNode.cleanInvalidAmount();
+                loadedPositions.add(entry.getLongKey());
+                loadedNodes.add(fluidNode);
                 networkAmount += fluidNode.amount;
-                loadedNodeCount++;
             }
         }
-        long networkCapacity = (long) loadedNodeCount * nodeCapacity;
+    }
+
+    @Override
+    public void commitTick(World world) {
+        // Gather targets and hopefully set fluid
+        List<FluidTarget> targets = new ArrayList<>();
+        for (int i = 0; i < loadedNodes.size(); ++i) {
+            loadedNodes.get(i).gatherTargetsAndPickFluid(world, BlockPos.fromLong(loadedPositions.getLong(i)), targets);
+        }
+        long networkCapacity = (long) loadedNodes.size() * nodeCapacity;
         FluidVariant fluid = ((FluidNetworkData) data).fluid;
         // If the fluid is EMPTY we stop here
-        if (fluid.isBlank()) {
+        rebalance = !fluid.isBlank();
+        if (!rebalance) {
             return;
         }
 
@@ -82,17 +107,22 @@ public class FluidNetwork extends PipeNetwork {
 
             transaction.commit();
         }
+    }
 
-        // Split fluid evenly across the nodes
-        // Rebalance fluid inside the nodes
-        for (PipeNetworkNode node : nodes.values()) {
-            if (node != null) {
-                FluidNetworkNode fluidNode = (FluidNetworkNode) node;
+    @Override
+    public void finishTick() {
+        if (rebalance) {
+            // Split fluid evenly across the nodes
+            // Rebalance fluid inside the nodes
+            int loadedNodeCount = loadedNodes.size();
+            for (FluidNetworkNode fluidNode : loadedNodes) {
                 fluidNode.amount = networkAmount / loadedNodeCount;
                 networkAmount -= fluidNode.amount;
                 loadedNodeCount--;
             }
         }
+        loadedPositions.clear();
+        loadedNodes.clear();
     }
 
     /**
@@ -177,7 +207,7 @@ public class FluidNetwork extends PipeNetwork {
             return true;
         if (onlyFluid)
             return false;
-        for (PipeNetworkNode node : nodes.values()) {
+        for (PipeNetworkNode node : getNodes().values()) {
             if (node == null || ((FluidNetworkNode) node).amount != 0) {
                 return false;
             }
@@ -199,13 +229,13 @@ public class FluidNetwork extends PipeNetwork {
      */
     protected void clearFluid() {
         // Check that every node is loaded.
-        for (PipeNetworkNode node : nodes.values()) {
+        for (PipeNetworkNode node : getNodes().values()) {
             if (node == null) {
                 return;
             }
         }
         // Clear
-        for (PipeNetworkNode node : nodes.values()) {
+        for (PipeNetworkNode node : getNodes().values()) {
             ((FluidNetworkNode) node).amount = 0;
         }
         ((FluidNetworkData) data).fluid = FluidVariant.blank();
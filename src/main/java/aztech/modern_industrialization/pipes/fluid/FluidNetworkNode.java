@@ -58,15 +58,15 @@ import org.jetbrains.annotations.Nullable;
 // LBA
 public class FluidNetworkNode extends PipeNetworkNode {
     long amount = 0;
+    private long savedAmount = 0;
     private final List<FluidConnection> connections = new ArrayList<>();
     private FluidVariant cachedFluid = FluidVariant.blank();
-    private boolean needsSync = false;
 
     /**
-     * Add all valid targets to the target list, and pick the fluid for the network
-     * if no fluid is set.
+     * Delete the fluid if the amount is invalid. Only accesses the node and its
+     * network, so it can run during {@link FluidNetwork#prepareTick}.
      */
-    void gatherTargetsAndPickFluid(World world, BlockPos pos, List<FluidTarget> targets) {
+    void cleanInvalidAmount() {
         FluidNetworkData data = (FluidNetworkData) network.data;
         FluidNetwork network = (FluidNetwork) this.network;
 
@@ -78,6 +78,14 @@ public class FluidNetworkNode extends PipeNetworkNode {
             ModernIndustrialization.LOGGER.warn("Amount > 0 but fluid is blank, deleting some fluid!");
             amount = 0;
         }
+    }
+
+    /**
+     * Add all valid targets to the target list, and pick the fluid for the network
+     * if no fluid is set.
+     */
+    void gatherTargetsAndPickFluid(World world, BlockPos pos, List<FluidTarget> targets) {
+        FluidNetworkData data = (FluidNetworkData) network.data;
 
         for (FluidConnection connection : connections) {
             Storage<FluidVariant> storage = getNeighborStorage(world, pos, connection);
@@ -172,6 +180,7 @@ public class FluidNetworkNode extends PipeNetworkNode {
     @Override
     public void fromTag(NbtCompound tag) {
         amount = tag.getLong("amount_ftl");
+        savedAmount = amount;
         for (Direction direction : Direction.values()) {
             if (tag.contains(direction.toString())) {
                 if (tag.getType(direction.toString()) == NbtType.BYTE) {
@@ -314,21 +323,24 @@ public class FluidNetworkNode extends PipeNetworkNode {
     }
 
     @Override
-    public void tick(World world, BlockPos pos) {
-        super.tick(world, pos);
-
-        FluidVariant networkFluid = ((FluidNetworkData) network.data).fluid;
-        if (!networkFluid.equals(cachedFluid)) {
-            cachedFluid = networkFluid;
-            needsSync = true;
+    public boolean pollDirty() {
+        // Connection changes already mark the pipe dirty, only the network tick needs to be tracked.
+        if (savedAmount == amount) {
+            return false;
         }
+        savedAmount = amount;
+        return true;
     }
 
     @Override
     public boolean shouldSync() {
-        boolean sync = needsSync;
-        needsSync = false;
-        return sync;
+        // The fluid of the network is rendered by the pipe.
+        FluidVariant networkFluid = ((FluidNetworkData) network.data).fluid;
+        if (!networkFluid.equals(cachedFluid)) {
+            cachedFluid = networkFluid;
+            return true;
+        }
+        return false;
     }
 
     // Used in the Waila plugin
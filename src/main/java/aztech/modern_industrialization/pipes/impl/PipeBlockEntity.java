@@ -31,7 +31,6 @@ import aztech.modern_industrialization.pipes.api.*;
 import aztech.modern_industrialization.pipes.gui.IPipeScreenHandlerHelper;
 import aztech.modern_industrialization.util.NbtHelper;
 import aztech.modern_industrialization.util.RenderHelper;
-import aztech.modern_industrialization.util.Tickable;
 import java.util.*;
 import net.fabricmc.fabric.api.block.entity.BlockEntityClientSerializable;
 import net.fabricmc.fabric.api.rendering.data.v1.RenderAttachmentBlockEntity;
@@ -49,13 +48,16 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.shape.VoxelShape;
 import net.minecraft.util.shape.VoxelShapes;
+import net.minecraft.world.World;
 
 /**
- * The BlockEntity for a pipe.
+ * The BlockEntity for a pipe. It doesn't tick: the networks are ticked by their
+ * {@link PipeNetworkManager}, and {@link PipeNetworks} syncs and marks dirty the
+ * pipes that were changed.
  */
 // TODO: add isClient checks wherever it is necessary
 public class PipeBlockEntity extends FastBlockEntity
-        implements IPipeScreenHandlerHelper, Tickable, BlockEntityClientSerializable, RenderAttachmentBlockEntity {
+        implements IPipeScreenHandlerHelper, BlockEntityClientSerializable, RenderAttachmentBlockEntity {
     private static final int MAX_PIPES = 3;
     private static final VoxelShape[][][] SHAPE_CACHE;
     static final VoxelShape DEFAULT_SHAPE;
@@ -78,28 +80,34 @@ public class PipeBlockEntity extends FastBlockEntity
     SortedMap<PipeNetworkType, NbtCompound> customData = new TreeMap<>();
 
     // Because we can't access the PipeNetworksComponent in fromTag because the
-    // world is null, we defer the node loading.
+    // world is null, we defer the node loading until the world is set.
     private final List<Pair<PipeNetworkType, PipeNetworkNode>> unloadedPipes = new ArrayList<>();
     /**
      * Set to true in PipeBlock to tell apart unloads and removals.
      */
     boolean stateReplaced = false;
 
+    /**
+     * Link the nodes read from NBT to their networks. The connections are updated
+     * later by {@link PipeNetworks}, since the neighbors may not be loaded yet.
+     */
     private void loadPipes() {
-        if (world.isClient)
+        if (world == null || world.isClient || unloadedPipes.isEmpty())
             return;
 
-        boolean changed = false;
+        PipeNetworks networks = PipeNetworks.get((ServerWorld) world);
         for (Pair<PipeNetworkType, PipeNetworkNode> unloaded : unloadedPipes) {
-            PipeNetworks.get((ServerWorld) world).getManager(unloaded.getLeft()).nodeLoaded(unloaded.getRight(), pos);
+            networks.getManager(unloaded.getLeft()).nodeLoaded(unloaded.getRight(), pos);
             pipes.add(unloaded.getRight());
-            unloaded.getRight().updateConnections(world, pos);
-            changed = true;
         }
         unloadedPipes.clear();
-        if (changed) {
-            onConnectionsChanged();
-        }
+        networks.scheduleConnectionUpdate(this);
+    }
+
+    @Override
+    public void setWorld(World world) {
+        super.setWorld(world);
+        loadPipes();
     }
 
     public PipeBlockEntity(BlockPos pos, BlockState state) {
@@ -228,6 +236,9 @@ public class PipeBlockEntity extends FastBlockEntity
 
     @Override
     public void markRemoved() {
+        if (world != null && !world.isClient) {
+            PipeNetworks.get((ServerWorld) world).cancelConnectionUpdate(this);
+        }
         if (stateReplaced) {
             loadPipes();
             for (PipeNetworkNode pipe : pipes) {
@@ -274,18 +285,8 @@ public class PipeBlockEntity extends FastBlockEntity
             unloadedPipes.add(new Pair<>(type, node));
             i++;
         }
-    }
-
-    @Override
-    public void tick() {
+        // If the block entity is already in the world, setWorld won't be called again.
         loadPipes();
-        for (PipeNetworkNode pipe : pipes) {
-            pipe.tick(world, pos);
-            if (pipe.shouldSync()) {
-                sync();
-            }
-        }
-        markDirty();
     }
 
     public void onConnectionsChanged() {
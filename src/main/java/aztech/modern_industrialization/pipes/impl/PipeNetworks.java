@@ -23,18 +23,32 @@
  */
 package aztech.modern_industrialization.pipes.impl;
 
+import aztech.modern_industrialization.pipes.api.PipeNetwork;
 import aztech.modern_industrialization.pipes.api.PipeNetworkManager;
+import aztech.modern_industrialization.pipes.api.PipeNetworkNode;
 import aztech.modern_industrialization.pipes.api.PipeNetworkType;
-import java.util.HashMap;
-import java.util.Map;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import java.util.*;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.PersistentState;
+import net.minecraft.world.World;
 
 public class PipeNetworks extends PersistentState {
     private static final String NAME = "modern_industrialization_pipe_networks";
+    private static final int MIN_PARALLEL_NETWORKS = 16;
     private final Map<PipeNetworkType, PipeNetworkManager> managers;
+    // Networks that were scheduled for the parallel tick during this world tick.
+    private final List<PipeNetwork> parallelTickNetworks = new ArrayList<>();
+    // Pipes that were loaded but whose connections were not updated yet, by chunk.
+    private final Long2ObjectOpenHashMap<List<PipeBlockEntity>> pendingConnectionUpdates = new Long2ObjectOpenHashMap<>();
 
     public PipeNetworks(Map<PipeNetworkType, PipeNetworkManager> managers) {
         this.managers = managers;
@@ -44,10 +58,116 @@ public class PipeNetworks extends PersistentState {
         return managers.computeIfAbsent(type, PipeNetworkManager::new);
     }
 
-    public void onServerTickStart() {
+    public Collection<PipeNetworkManager> getManagers() {
+        return Collections.unmodifiableCollection(managers.values());
+    }
+
+    /**
+     * Schedule a network for the parallel tick at the end of the world tick. See
+     * {@link PipeNetwork#prepareTick}.
+     */
+    public void scheduleParallelTick(PipeNetwork network) {
+        parallelTickNetworks.add(network);
+    }
+
+    /**
+     * Update the connections of a pipe that was just loaded, once its chunk ticks.
+     * The neighbors might not be loaded yet when the pipe is.
+     */
+    void scheduleConnectionUpdate(PipeBlockEntity pipe) {
+        long chunkPos = ChunkPos.toLong(pipe.getPos().getX() >> 4, pipe.getPos().getZ() >> 4);
+        pendingConnectionUpdates.computeIfAbsent(chunkPos, p -> new ArrayList<>()).add(pipe);
+    }
+
+    void cancelConnectionUpdate(PipeBlockEntity pipe) {
+        long chunkPos = ChunkPos.toLong(pipe.getPos().getX() >> 4, pipe.getPos().getZ() >> 4);
+        List<PipeBlockEntity> pipes = pendingConnectionUpdates.get(chunkPos);
+        if (pipes != null && pipes.remove(pipe) && pipes.isEmpty()) {
+            pendingConnectionUpdates.remove(chunkPos);
+        }
+    }
+
+    public void onWorldTickEnd(ServerWorld world) {
+        runConnectionUpdates(world);
+
+        for (PipeNetworkManager manager : managers.values()) {
+            manager.tickNetworks(world);
+        }
+
+        if (!parallelTickNetworks.isEmpty()) {
+            // Networks that were merged into another network since they were scheduled must not tick.
+            parallelTickNetworks.removeIf(network -> !network.manager.getNetworks().contains(network));
+            // Not worth the overhead of the fork-join pool for a few networks.
+            runParallelTick(parallelTickNetworks, world, parallelTickNetworks.size() >= MIN_PARALLEL_NETWORKS);
+            parallelTickNetworks.clear();
+        }
+
         for (PipeNetworkManager manager : managers.values()) {
-            manager.markNetworksAsUnticked();
+            updateTickedPipes(world, manager);
+        }
+    }
+
+    private void runConnectionUpdates(ServerWorld world) {
+        if (pendingConnectionUpdates.isEmpty()) {
+            return;
+        }
+
+        List<PipeBlockEntity> readyPipes = new ArrayList<>();
+        ObjectIterator<Long2ObjectMap.Entry<List<PipeBlockEntity>>> it = Long2ObjectMaps.fastIterator(pendingConnectionUpdates);
+        while (it.hasNext()) {
+            List<PipeBlockEntity> pipes = it.next().getValue();
+            // Pipes used to update their connections in their first tick: wait until the
+            // chunk ticks, so that the neighbors are loaded.
+            if (world.method_37117(pipes.get(0).getPos())) {
+                readyPipes.addAll(pipes);
+                it.remove();
+            }
+        }
+        // Updating the connections may load other pipes, so do it after the iteration.
+        for (PipeBlockEntity pipe : readyPipes) {
+            if (!pipe.isRemoved()) {
+                pipe.updateConnections();
+            }
+        }
+    }
+
+    /**
+     * Pipe block entities don't tick, so sync and mark dirty the pipes whose nodes
+     * were changed by the network ticks.
+     */
+    private static void updateTickedPipes(ServerWorld world, PipeNetworkManager manager) {
+        for (PipeNetwork network : manager.getTickedNetworks()) {
+            LongIterator it = network.getLoadedNodes().iterator();
+            while (it.hasNext()) {
+                long pos = it.nextLong();
+                PipeNetworkNode node = network.getNodes().get(pos);
+                // Always poll both, to reset their state.
+                boolean sync = node.shouldSync();
+                boolean dirty = node.pollDirty();
+                if ((sync || dirty) && world.getBlockEntity(BlockPos.fromLong(pos)) instanceof PipeBlockEntity pipe) {
+                    if (sync) {
+                        pipe.sync();
+                    }
+                    if (dirty) {
+                        pipe.markDirty();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the three phases of the parallel tick. The first and last phases only
+     * touch the state of each network, so the result doesn't depend on the
+     * scheduling of the threads. See PipeNetworkTickBenchmark for the cost of the
+     * fork-join pool compared to a serial run.
+     */
+    static void runParallelTick(List<PipeNetwork> networks, World world, boolean parallel) {
+        (parallel ? networks.parallelStream() : networks.stream()).forEach(PipeNetwork::prepareTick);
+        for (PipeNetwork network : networks) {
+            network.commitTick(world);
         }
+        (parallel ? networks.parallelStream() : networks.stream()).forEach(PipeNetwork::finishTick);
     }
 
     @Override
@@ -23,18 +23,18 @@
  */
 package aztech.modern_industrialization.pipes.item;
 
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.api.WhitelistedItemStorage;
 import aztech.modern_industrialization.pipes.api.PipeNetwork;
 import aztech.modern_industrialization.pipes.api.PipeNetworkData;
 import aztech.modern_industrialization.pipes.api.PipeNetworkNode;
-import aztech.modern_industrialization.util.MIBlockApiCache;
 import aztech.modern_industrialization.util.StorageUtil2;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
-import net.fabricmc.fabric.api.transfer.v1.item.ItemStorage;
 import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
 import net.fabricmc.fabric.api.transfer.v1.storage.StoragePreconditions;
@@ -45,195 +45,344 @@ import net.fabricmc.fabric.api.transfer.v1.storage.base.InsertionOnlyStorage;
 import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
 import net.fabricmc.fabric.api.transfer.v1.transaction.TransactionContext;
 import net.minecraft.item.Item;
-import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
 
 public class ItemNetwork extends PipeNetwork {
-    private static final ReferenceOpenHashSet<Item> WHITELIST_CACHED_SET = new ReferenceOpenHashSet<>();
+    /**
+     * Ticks between two extractions of the fixed schedule. The adaptive schedule
+     * scales the number of moved items relative to this interval.
+     */
+    private static final int EXTRACTION_INTERVAL = 60;
+    private static final int MIN_EXTRACTION_INTERVAL = 15;
+    private static final int MAX_EXTRACTION_INTERVAL = 240;
+
+    // Insert connections of the network, or null if they must be collected again.
+    private List<InsertConnection> insertConnections = null;
+    // Routing index: the insert connections with a loaded target, by priority.
+    private final Int2ObjectMap<PriorityBucket> priorityBuckets = new Int2ObjectOpenHashMap<>();
+    // Aggregate of the priority buckets, or null if a bucket was added or removed.
+    private Storage<ItemVariant> aggregateInsertTarget = null;
+    private final ReferenceOpenHashSet<Item> whitelistScratch = new ReferenceOpenHashSet<>();
+    // Extracting connections sorted by next extraction tick, only used by the adaptive schedule.
+    private final PriorityQueue<ScheduledExtraction> extractionQueue = new PriorityQueue<>(
+            Comparator.comparingLong(extraction -> extraction.connection.nextExtractionTick));
+    private boolean extractionQueueDirty = true;
+    // Number of storage lookups during the current tick, and during the last complete tick.
+    private int apiLookups = 0;
+    private int lastTickApiLookups = 0;
 
     public ItemNetwork(int id, PipeNetworkData data) {
         super(id, data == null ? new ItemNetworkData() : data);
     }
 
+    /**
+     * Drop the routing index and extraction schedule. Must be called whenever a
+     * connection of the network is added or removed, or when its type changes.
+     * Filter and priority changes are picked up incrementally, see
+     * {@link ItemNetworkNode.ItemConnection#routingVersion}.
+     */
+    public void onConnectionsChanged() {
+        insertConnections = null;
+        priorityBuckets.clear();
+        aggregateInsertTarget = null;
+        extractionQueueDirty = true;
+    }
+
     @Override
-    public void tick(World world) {
-        // Only tick once
-        if (ticked)
-            return;
-        ticked = true;
+    public void onNodesChanged() {
+        onConnectionsChanged();
+    }
 
-        Storage<ItemVariant> insertTargets = null;
+    @Override
+    public void tick(World world) {
+        apiLookups = 0;
 
         try (Transaction tx = Transaction.openOuter()) {
-            for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
-                if (entry.getValue() != null) {
-                    BlockPos pos = entry.getKey();
-                    ItemNetworkNode itemNode = (ItemNetworkNode) entry.getValue();
-                    if (itemNode.inactiveTicks == 0) {
-                        for (ItemNetworkNode.ItemConnection connection : itemNode.connections) {
-                            if (connection.canExtract()) {
-                                Storage<ItemVariant> source = ItemStorage.SIDED.find(world, pos.offset(connection.direction),
-                                        connection.direction.getOpposite());
-
-                                if (insertTargets == null) {
-                                    insertTargets = getAggregateInsertTarget(world);
-                                }
-
-                                StorageUtil.move(source, insertTargets, connection::canStackMoveThrough, connection.getMoves(), tx);
-                            }
-                        }
-                        itemNode.inactiveTicks = 60;
-                    }
-                    itemNode.inactiveTicks--;
-                }
+            if (MIConfig.getConfig().adaptiveItemPipeScheduling) {
+                tickAdaptive(world, tx);
+            } else {
+                tickFixed(world, tx);
             }
 
             tx.commit();
         }
+
+        lastTickApiLookups = apiLookups;
     }
 
     /**
-     * Find all connections in which to insert that are loaded.
+     * Return the number of storage lookups during the last tick of this network.
      */
-    public Storage<ItemVariant> getAggregateInsertTarget(World world) {
-        Int2ObjectMap<PriorityBucket> priorityBuckets = new Int2ObjectOpenHashMap<>();
+    public int getLastTickApiLookups() {
+        return lastTickApiLookups;
+    }
 
-        for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
+    @Nullable
+    private Storage<ItemVariant> findStorage(World world, BlockPos pos, ItemNetworkNode.ItemConnection connection) {
+        apiLookups++;
+        return connection.findStorage(world, pos);
+    }
+
+    /**
+     * Every node extracts from all of its connections once every
+     * {@link #EXTRACTION_INTERVAL} ticks.
+     */
+    private void tickFixed(World world, Transaction tx) {
+        Storage<ItemVariant> insertTargets = null;
+
+        for (Long2ObjectMap.Entry<PipeNetworkNode> entry : nodeEntries()) {
             if (entry.getValue() != null) {
-                ItemNetworkNode node = (ItemNetworkNode) entry.getValue();
-                for (ItemNetworkNode.ItemConnection connection : node.connections) {
-                    if (connection.canInsert()) {
-                        if (connection.cache == null) {
-                            connection.cache = MIBlockApiCache.create(ItemStorage.SIDED, (ServerWorld) world,
-                                    entry.getKey().offset(connection.direction));
-                        }
-                        Storage<ItemVariant> target = connection.cache.find(connection.direction.getOpposite());
-                        if (target != null && target.supportsInsertion()) {
-                            PriorityBucket bucket = priorityBuckets.computeIfAbsent(connection.priority, PriorityBucket::new);
-                            InsertTarget it = new InsertTarget(connection, StorageUtil2.wrapInventory(target));
-
-                            if (connection.whitelist || (target instanceof WhitelistedItemStorage wis && wis.currentlyWhitelisted())) {
-                                bucket.whitelist.add(it);
-                            } else {
-                                bucket.blacklist.add(it);
+                ItemNetworkNode itemNode = (ItemNetworkNode) entry.getValue();
+                if (itemNode.inactiveTicks == 0) {
+                    for (ItemNetworkNode.ItemConnection connection : itemNode.connections) {
+                        if (connection.canExtract()) {
+                            Storage<ItemVariant> source = findStorage(world, BlockPos.fromLong(entry.getLongKey()), connection);
+
+                            if (insertTargets == null) {
+                                insertTargets = getAggregateInsertTarget(world);
                             }
+
+                            StorageUtil.move(source, insertTargets, connection::canStackMoveThrough, connection.getMoves(), tx);
                         }
                     }
+                    itemNode.inactiveTicks = EXTRACTION_INTERVAL;
                 }
+                itemNode.inactiveTicks--;
             }
         }
+    }
 
-        PriorityBucket[] sortedBuckets = priorityBuckets.values().toArray(new PriorityBucket[0]);
-        // Now we sort by priority, high to low
-        Arrays.sort(sortedBuckets, Comparator.comparingInt(pb -> -pb.priority));
+    /**
+     * Every extracting connection is scheduled on its own. Connections that move
+     * their full budget are extracted from more often, and connections that can't
+     * move anything back off exponentially. The budget is proportional to the
+     * interval, so the throughput never exceeds that of the fixed schedule.
+     */
+    private void tickAdaptive(World world, Transaction tx) {
+        long time = world.getTime();
+        if (extractionQueueDirty) {
+            rebuildExtractionQueue(time);
+        }
+
+        Storage<ItemVariant> insertTargets = null;
 
-        List<Storage<ItemVariant>> targets = new ArrayList<>();
-        Random random = ThreadLocalRandom.current();
+        while (!extractionQueue.isEmpty() && extractionQueue.peek().connection.nextExtractionTick <= time) {
+            ScheduledExtraction extraction = extractionQueue.poll();
+            ItemNetworkNode.ItemConnection connection = extraction.connection;
+            Storage<ItemVariant> source = findStorage(world, extraction.pos, connection);
 
-        for (PriorityBucket pb : sortedBuckets) {
-            int whitelistSize = pb.whitelist.size();
-            int blacklistSize = pb.blacklist.size();
-            if (whitelistSize > 0) {
-                Collections.shuffle(pb.whitelist);
-                targets.add(new WhitelistAggregate(pb.whitelist));
+            if (insertTargets == null) {
+                insertTargets = getAggregateInsertTarget(world);
             }
-            if (blacklistSize > 0) {
-                Collections.shuffle(pb.blacklist);
-                targets.add(new BlacklistAggregate(pb.blacklist));
+
+            int interval = connection.extractionInterval;
+            long maxMoves = Math.max(1, connection.getMoves() * Math.min(interval, EXTRACTION_INTERVAL) / EXTRACTION_INTERVAL);
+            long moved = StorageUtil.move(source, insertTargets, connection::canStackMoveThrough, maxMoves, tx);
+
+            if (moved == 0) {
+                interval = Math.min(MAX_EXTRACTION_INTERVAL, interval * 2);
+            } else if (moved >= maxMoves) {
+                interval = Math.max(MIN_EXTRACTION_INTERVAL, Math.min(interval, EXTRACTION_INTERVAL) / 2);
+            } else {
+                interval = Math.min(interval, EXTRACTION_INTERVAL);
             }
+            connection.extractionInterval = interval;
+            connection.nextExtractionTick = time + interval;
+            extractionQueue.add(extraction);
+        }
+    }
 
-            // Ensure equal chance to receive items on average.
-            if (whitelistSize > 0 && blacklistSize > 0) {
-                int tot = whitelistSize + blacklistSize;
+    private void rebuildExtractionQueue(long time) {
+        extractionQueueDirty = false;
+        extractionQueue.clear();
 
-                if (random.nextDouble() >= (double) whitelistSize / (whitelistSize + blacklistSize)) {
-                    Collections.swap(targets, targets.size() - 2, targets.size() - 1);
+        for (Long2ObjectMap.Entry<PipeNetworkNode> entry : nodeEntries()) {
+            if (entry.getValue() != null) {
+                ItemNetworkNode itemNode = (ItemNetworkNode) entry.getValue();
+                for (ItemNetworkNode.ItemConnection connection : itemNode.connections) {
+                    if (connection.canExtract()) {
+                        if (connection.extractionInterval == 0) {
+                            // Spread the first extractions of new connections.
+                            connection.extractionInterval = EXTRACTION_INTERVAL;
+                            connection.nextExtractionTick = time + ThreadLocalRandom.current().nextInt(EXTRACTION_INTERVAL);
+                        }
+                        extractionQueue.add(new ScheduledExtraction(BlockPos.fromLong(entry.getLongKey()), connection));
+                    }
                 }
             }
         }
+    }
+
+    /**
+     * Return the aggregate of all loaded connections in which to insert. The
+     * routing index is kept across ticks, and only the entries of the connections
+     * whose filter, priority, storage or storage whitelist changed are updated.
+     */
+    public Storage<ItemVariant> getAggregateInsertTarget(World world) {
+        if (insertConnections == null) {
+            insertConnections = new ArrayList<>();
+            for (Long2ObjectMap.Entry<PipeNetworkNode> entry : nodeEntries()) {
+                if (entry.getValue() != null) {
+                    ItemNetworkNode node = (ItemNetworkNode) entry.getValue();
+                    for (ItemNetworkNode.ItemConnection connection : node.connections) {
+                        if (connection.canInsert()) {
+                            insertConnections.add(new InsertConnection(BlockPos.fromLong(entry.getLongKey()), connection));
+                        }
+                    }
+                }
+            }
+        }
+
+        // The targets are not notified when their storage changes, so check them every time.
+        for (InsertConnection insertConnection : insertConnections) {
+            Storage<ItemVariant> found = findStorage(world, insertConnection.pos, insertConnection.connection);
+            if (insertConnection.isOutdated(found, whitelistScratch)) {
+                unregister(insertConnection);
+                insertConnection.update(found);
+                register(insertConnection);
+            }
+        }
+
+        if (aggregateInsertTarget == null) {
+            PriorityBucket[] sortedBuckets = priorityBuckets.values().toArray(new PriorityBucket[0]);
+            // Now we sort by priority, high to low
+            Arrays.sort(sortedBuckets, Comparator.comparingInt(pb -> -pb.priority));
+            aggregateInsertTarget = new CombinedStorage<>(Arrays.asList(sortedBuckets));
+        }
+        return aggregateInsertTarget;
+    }
+
+    private void register(InsertConnection insertConnection) {
+        if (insertConnection.target != null) {
+            PriorityBucket bucket = priorityBuckets.get(insertConnection.priority);
+            if (bucket == null) {
+                bucket = new PriorityBucket(insertConnection.priority);
+                priorityBuckets.put(insertConnection.priority, bucket);
+                aggregateInsertTarget = null;
+            }
+            bucket.add(insertConnection);
+            insertConnection.bucket = bucket;
+        }
+    }
 
-        return new CombinedStorage<>(targets);
+    private void unregister(InsertConnection insertConnection) {
+        PriorityBucket bucket = insertConnection.bucket;
+        if (bucket != null) {
+            bucket.remove(insertConnection);
+            insertConnection.bucket = null;
+            if (bucket.isEmpty()) {
+                priorityBuckets.remove(bucket.priority);
+                aggregateInsertTarget = null;
+            }
+        }
     }
 
-    private static class PriorityBucket {
+    /**
+     * All the targets with the same priority. Whitelisted targets are indexed by
+     * the items they accept.
+     */
+    private static class PriorityBucket implements InsertionOnlyStorage<ItemVariant> {
         private final int priority;
-        private final List<InsertTarget> whitelist = new ArrayList<>();
-        private final List<InsertTarget> blacklist = new ArrayList<>();
+        // Whitelisted targets accepting an item without NBT, including targets whitelisted by their storage.
+        private final Map<Item, List<InsertConnection>> whitelistByItem = new IdentityHashMap<>();
+        // Whitelisted targets accepting an item with NBT.
+        private final Map<ItemVariant, List<InsertConnection>> whitelistByVariant = new HashMap<>();
+        private int whitelistSize = 0;
+        private final List<InsertConnection> blacklist = new ArrayList<>();
 
         private PriorityBucket(int priority) {
             this.priority = priority;
         }
-    }
 
-    private static class WhitelistAggregate implements InsertionOnlyStorage<ItemVariant> {
-        // Used when the inserted item doesn't have NBT
-        private final Map<Item, List<Storage<ItemVariant>>> map = new IdentityHashMap<>();
-        // Used when the inserted item has NBT.
-        private final List<InsertTarget> targets;
-
-        WhitelistAggregate(List<InsertTarget> targets) {
-            this.targets = targets;
-            for (InsertTarget target : targets) {
-                if (target.connection.whitelist) {
-                    ItemNetworkNode.ItemConnection conn = target.connection;
-                    for (ItemVariant variant : conn.stacksCache) {
-                        if (!variant.hasNbt()) {
-                            map.computeIfAbsent(variant.getItem(), v -> new ArrayList<>()).add(target.target);
-                        }
-                    }
-                } else if (target.target instanceof WhitelistedItemStorage wis) {
-                    WHITELIST_CACHED_SET.clear();
-                    wis.getWhitelistedItems(WHITELIST_CACHED_SET);
-                    for (Item item : WHITELIST_CACHED_SET) {
-                        map.computeIfAbsent(item, v -> new ArrayList<>()).add(target.target);
-                    }
-                } else {
-                    throw new IllegalStateException("Internal item pipe error! Should never happen!");
+        private void add(InsertConnection target) {
+            if (target.whitelisted) {
+                whitelistSize++;
+                for (Item item : target.whitelistedItems) {
+                    whitelistByItem.computeIfAbsent(item, i -> new ArrayList<>()).add(target);
+                }
+                for (ItemVariant variant : target.whitelistedVariants) {
+                    whitelistByVariant.computeIfAbsent(variant, v -> new ArrayList<>()).add(target);
                 }
+            } else {
+                blacklist.add(target);
             }
         }
 
-        @Override
-        public long insert(ItemVariant resource, long maxAmount, TransactionContext transaction) {
-            if (resource.hasNbt()) {
-                return insertTargets(targets, resource, maxAmount, transaction);
+        private void remove(InsertConnection target) {
+            if (target.whitelisted) {
+                whitelistSize--;
+                for (Item item : target.whitelistedItems) {
+                    removeFromIndex(whitelistByItem, item, target);
+                }
+                for (ItemVariant variant : target.whitelistedVariants) {
+                    removeFromIndex(whitelistByVariant, variant, target);
+                }
+            } else {
+                blacklist.remove(target);
             }
+        }
 
-            StoragePreconditions.notBlankNotNegative(resource, maxAmount);
-            long totalInserted = 0;
-
-            List<Storage<ItemVariant>> targets = map.get(resource.getItem());
-            if (targets != null) {
-                for (Storage<ItemVariant> target : targets) {
-                    long inserted = target.insert(resource, maxAmount, transaction);
-                    maxAmount -= inserted;
-                    totalInserted += inserted;
-                    if (maxAmount == 0) {
-                        break;
-                    }
-                }
+        private static <K> void removeFromIndex(Map<K, List<InsertConnection>> index, K key, InsertConnection target) {
+            List<InsertConnection> targets = index.get(key);
+            targets.remove(target);
+            if (targets.isEmpty()) {
+                index.remove(key);
             }
+        }
 
-            return totalInserted;
+        private boolean isEmpty() {
+            return whitelistSize == 0 && blacklist.isEmpty();
         }
 
         @Override
-        public Iterator<StorageView<ItemVariant>> iterator(TransactionContext transaction) {
-            return Collections.emptyIterator();
+        public long insert(ItemVariant resource, long maxAmount, TransactionContext transaction) {
+            StoragePreconditions.notBlankNotNegative(resource, maxAmount);
+            int blacklistSize = blacklist.size();
+
+            // Ensure equal chance to receive items on average.
+            boolean whitelistFirst = blacklistSize == 0
+                    || whitelistSize > 0 && ThreadLocalRandom.current().nextInt(whitelistSize + blacklistSize) < whitelistSize;
+
+            long inserted;
+            if (whitelistFirst) {
+                inserted = insertWhitelist(resource, maxAmount, transaction);
+                if (inserted < maxAmount) {
+                    inserted += insertTargets(blacklist, resource, maxAmount - inserted, transaction, true);
+                }
+            } else {
+                inserted = insertTargets(blacklist, resource, maxAmount, transaction, true);
+                if (inserted < maxAmount) {
+                    inserted += insertWhitelist(resource, maxAmount - inserted, transaction);
+                }
+            }
+            return inserted;
         }
-    }
 
-    private static class BlacklistAggregate implements InsertionOnlyStorage<ItemVariant> {
-        private final List<InsertTarget> targets;
+        private long insertWhitelist(ItemVariant resource, long maxAmount, TransactionContext transaction) {
+            long inserted = 0;
 
-        private BlacklistAggregate(List<InsertTarget> targets) {
-            this.targets = targets;
-        }
+            if (resource.hasNbt()) {
+                // The whitelist of these targets contains the variant, no need to check it again.
+                List<InsertConnection> targets = whitelistByVariant.get(resource);
+                if (targets != null) {
+                    inserted += insertTargets(targets, resource, maxAmount, transaction, false);
+                }
+                // Targets whitelisted by their storage still use the connection filter.
+                targets = whitelistByItem.get(resource.getItem());
+                if (targets != null && inserted < maxAmount) {
+                    inserted += insertTargets(targets, resource, maxAmount - inserted, transaction, true);
+                }
+            } else {
+                // The whitelist of these targets contains the item, no need to check it again.
+                List<InsertConnection> targets = whitelistByItem.get(resource.getItem());
+                if (targets != null) {
+                    inserted += insertTargets(targets, resource, maxAmount, transaction, false);
+                }
+            }
 
-        @Override
-        public long insert(ItemVariant resource, long maxAmount, TransactionContext transaction) {
-            return insertTargets(targets, resource, maxAmount, transaction);
+            return inserted;
         }
 
         @Override
@@ -242,12 +391,18 @@ public class ItemNetwork extends PipeNetwork {
         }
     }
 
-    private static long insertTargets(List<InsertTarget> targets, ItemVariant resource, long maxAmount, TransactionContext transaction) {
+    private static long insertTargets(List<InsertConnection> targets, ItemVariant resource, long maxAmount, TransactionContext transaction,
+            boolean checkFilter) {
         StoragePreconditions.notBlankNotNegative(resource, maxAmount);
         long totalInserted = 0;
 
-        for (InsertTarget target : targets) {
-            if (target.connection.canStackMoveThrough(resource)) {
+        // The targets are cached, so start at a random one to spread items evenly on average.
+        int size = targets.size();
+        int start = size > 1 ? ThreadLocalRandom.current().nextInt(size) : 0;
+
+        for (int i = 0; i < size; ++i) {
+            InsertConnection target = targets.get((start + i) % size);
+            if (!checkFilter || target.connection.canStackMoveThrough(resource)) {
                 long inserted = target.target.insert(resource, maxAmount, transaction);
                 maxAmount -= inserted;
                 totalInserted += inserted;
@@ -260,6 +415,84 @@ public class ItemNetwork extends PipeNetwork {
         return totalInserted;
     }
 
-    private record InsertTarget(ItemNetworkNode.ItemConnection connection, Storage<ItemVariant> target) {
+    /**
+     * An insert connection, and the routing state it was last registered with.
+     */
+    private static class InsertConnection {
+        private final BlockPos pos;
+        private final ItemNetworkNode.ItemConnection connection;
+        private int routingVersion = -1;
+        private int priority;
+        // The storage found by the cache, and the storage items are inserted into.
+        @Nullable
+        private Storage<ItemVariant> storage;
+        @Nullable
+        private Storage<ItemVariant> target;
+        private boolean whitelisted;
+        // Accepted items without NBT, from the connection filter or from the whitelist of the storage.
+        private final ReferenceOpenHashSet<Item> whitelistedItems = new ReferenceOpenHashSet<>();
+        // Accepted items with NBT, from the connection filter.
+        private final Set<ItemVariant> whitelistedVariants = new HashSet<>();
+        @Nullable
+        private PriorityBucket bucket;
+
+        private InsertConnection(BlockPos pos, ItemNetworkNode.ItemConnection connection) {
+            this.pos = pos;
+            this.connection = connection;
+        }
+
+        @Nullable
+        private static Storage<ItemVariant> filterInsertion(@Nullable Storage<ItemVariant> found) {
+            return found != null && found.supportsInsertion() ? found : null;
+        }
+
+        /**
+         * Check whether the routing state changed since the last update.
+         */
+        private boolean isOutdated(@Nullable Storage<ItemVariant> found, ReferenceOpenHashSet<Item> scratch) {
+            found = filterInsertion(found);
+            if (found != storage || connection.routingVersion != routingVersion) {
+                return true;
+            }
+
+            if (!connection.whitelist && found instanceof WhitelistedItemStorage wis && wis.currentlyWhitelisted()) {
+                if (!whitelisted) {
+                    return true;
+                }
+                scratch.clear();
+                wis.getWhitelistedItems(scratch);
+                return !scratch.equals(whitelistedItems);
+            } else {
+                return whitelisted != connection.whitelist;
+            }
+        }
+
+        private void update(@Nullable Storage<ItemVariant> found) {
+            storage = filterInsertion(found);
+            target = StorageUtil2.wrapInventory(storage);
+            routingVersion = connection.routingVersion;
+            priority = connection.priority;
+            whitelistedItems.clear();
+            whitelistedVariants.clear();
+
+            if (connection.whitelist) {
+                whitelisted = true;
+                for (ItemVariant variant : connection.stacksCache) {
+                    if (variant.hasNbt()) {
+                        whitelistedVariants.add(variant);
+                    } else {
+                        whitelistedItems.add(variant.getItem());
+                    }
+                }
+            } else if (storage instanceof WhitelistedItemStorage wis && wis.currentlyWhitelisted()) {
+                whitelisted = true;
+                wis.getWhitelistedItems(whitelistedItems);
+            } else {
+                whitelisted = false;
+            }
+        }
+    }
+
+    private record ScheduledExtraction(BlockPos pos, ItemNetworkNode.ItemConnection connection) {
     }
 }
@@ -43,12 +43,14 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.text.TranslatableText;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
 
 // LBA
 public class ItemNetworkNode extends PipeNetworkNode {
@@ -59,7 +61,19 @@ public class ItemNetworkNode extends PipeNetworkNode {
     public void updateConnections(World world, BlockPos pos) {
         // Remove the connection to the outside world if a connection to another pipe is
         // made.
-        connections.removeIf(connection -> network.manager.hasLink(pos, connection.direction));
+        if (connections.removeIf(connection -> network.manager.hasLink(pos, connection.direction))) {
+            onConnectionsChanged();
+        }
+    }
+
+    /**
+     * Must be called when a connection is added or removed, or when its type
+     * changes, so that the network can drop its routing index.
+     */
+    private void onConnectionsChanged() {
+        if (network != null) {
+            ((ItemNetwork) network).onConnectionsChanged();
+        }
     }
 
     private boolean canConnect(World world, BlockPos pos, Direction direction) {
@@ -93,6 +107,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     conn.dropUpgrades(world, pos);
                     connections.remove(i);
                 }
+                onConnectionsChanged();
                 return;
             }
         }
@@ -109,6 +124,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
         // Otherwise try to connect
         if (canConnect(world, pos, direction)) {
             connections.add(new ItemConnection(direction, BLOCK_IN, 0));
+            onConnectionsChanged();
         }
     }
 
@@ -129,6 +145,14 @@ public class ItemNetworkNode extends PipeNetworkNode {
         return tag;
     }
 
+    @Override
+    public boolean pollDirty() {
+        // Connection changes already mark the pipe dirty. The network tick only changes
+        // the extraction countdown, which is saved whenever the chunk is saved but is
+        // not worth a save on its own.
+        return false;
+    }
+
     @Override
     public void fromTag(NbtCompound tag) {
         for (Direction direction : Direction.values()) {
@@ -186,6 +210,11 @@ public class ItemNetworkNode extends PipeNetworkNode {
         final Set<ItemVariant> stacksCache = new HashSet<>();
         private ItemStack upgradeStack = ItemStack.EMPTY;
         MIBlockApiCache<Storage<ItemVariant>, Direction> cache = null;
+        // Incremented when the filter or the priority changes, see ItemNetwork#getAggregateInsertTarget.
+        int routingVersion = 0;
+        // Adaptive extraction scheduling, see ItemNetwork#tickAdaptive.
+        int extractionInterval = 0;
+        long nextExtractionTick = 0;
 
         private ItemConnection(Direction direction, PipeEndpointType type, int priority) {
             this.direction = direction;
@@ -217,6 +246,17 @@ public class ItemNetworkNode extends PipeNetworkNode {
             return stacksCache.contains(key) == whitelist;
         }
 
+        /**
+         * Find the storage this connection is facing, using the cached lookup.
+         */
+        @Nullable
+        Storage<ItemVariant> findStorage(World world, BlockPos pos) {
+            if (cache == null) {
+                cache = MIBlockApiCache.create(ItemStorage.SIDED, (ServerWorld) world, pos.offset(direction));
+            }
+            return cache.find(direction.getOpposite());
+        }
+
         long getMoves() {
             SpeedUpgrade upgrade = SpeedUpgrade.LOOKUP.find(upgradeStack, null);
             return 16 + (upgrade == null ? 0 : upgrade.value() * upgradeStack.getCount());
@@ -243,6 +283,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     @Override
                     public void setWhitelist(boolean whitelist) {
                         ItemConnection.this.whitelist = whitelist;
+                        routingVersion++;
                         helper.callMarkDirty();
                     }
 
@@ -255,6 +296,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     public void setStack(int slot, ItemStack stack) {
                         stacks[slot] = stack;
                         refreshStacksCache();
+                        routingVersion++;
                         helper.callMarkDirty();
                     }
 
@@ -278,6 +320,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     public void setConnectionType(int type) {
                         if (0 <= type && type < 3) {
                             ItemConnection.this.type = decodeConnectionType(type);
+                            onConnectionsChanged();
                             helper.callMarkDirty();
                             helper.callSync();
                         }
@@ -291,6 +334,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     @Override
                     public void setPriority(int priority) {
                         ItemConnection.this.priority = priority;
+                        routingVersion++;
                         helper.callMarkDirty();
                     }
 
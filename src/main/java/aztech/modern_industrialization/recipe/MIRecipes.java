@@ -23,14 +23,27 @@
  */
 package aztech.modern_industrialization.recipe;
 
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.MIRuntimeResourcePack;
+import aztech.modern_industrialization.ModernIndustrialization;
 import aztech.modern_industrialization.materials.Material;
 import aztech.modern_industrialization.materials.MaterialRegistry;
 import aztech.modern_industrialization.materials.alloy.AlloyRegister;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import net.devtech.arrp.api.RuntimeResourcePack;
 import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
 
 public final class MIRecipes {
+    /**
+     * The material recipes added during {@link #registerMaterialRecipes}, if they
+     * have to be saved to the cache.
+     */
+    @Nullable
+    private static Map<Identifier, byte[]> recordedMaterialRecipes = null;
+
     public static RuntimeResourcePack buildRecipesPack() {
         RuntimeResourcePack pack = RuntimeResourcePack.create("modern_industrialization:recipes");
 
@@ -51,9 +64,43 @@ public final class MIRecipes {
         AlloyRegister.init(pack);
         HeatExchangerHelper.init(pack);
 
-        for (Material material : MaterialRegistry.getMaterials().values()) {
-            material.registerRecipes.run();
-        }
+        registerMaterialRecipes();
         return pack;
     }
+
+    /**
+     * Add a generated material recipe to the general runtime pack.
+     */
+    public static void addMaterialRecipe(Identifier id, byte[] recipe) {
+        ModernIndustrialization.RESOURCE_PACK.addData(id, recipe);
+        if (recordedMaterialRecipes != null) {
+            recordedMaterialRecipes.put(id, recipe);
+        }
+    }
+
+    private static void registerMaterialRecipes() {
+        // The assembler recipes above depend on the data packs, so only the material
+        // recipes are cached.
+        String cacheFingerprint = MIConfig.getConfig().cacheGeneratedRecipes ? RecipeCache.computeFingerprint() : null;
+        if (cacheFingerprint != null) {
+            Map<Identifier, byte[]> cachedRecipes = RecipeCache.tryLoad(cacheFingerprint);
+            if (cachedRecipes != null) {
+                cachedRecipes.forEach(ModernIndustrialization.RESOURCE_PACK::addData);
+                ModernIndustrialization.LOGGER.info("Loaded " + cachedRecipes.size() + " generated material recipes from the cache.");
+                return;
+            }
+            recordedMaterialRecipes = new LinkedHashMap<>();
+        }
+
+        try {
+            for (Material material : MaterialRegistry.getMaterials().values()) {
+                material.registerRecipes.run();
+            }
+            if (cacheFingerprint != null) {
+                RecipeCache.save(cacheFingerprint, recordedMaterialRecipes);
+            }
+        } finally {
+            recordedMaterialRecipes = null;
+        }
+    }
 }
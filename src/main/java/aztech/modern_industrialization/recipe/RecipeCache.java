@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.recipe;
+
+import aztech.modern_industrialization.MIConfig;
+import aztech.modern_industrialization.ModernIndustrialization;
+import aztech.modern_industrialization.materials.Material;
+import aztech.modern_industrialization.materials.MaterialRegistry;
+import aztech.modern_industrialization.materials.part.MaterialPart;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.ModContainer;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Compressed on-disk cache of the generated material recipes. The recipes only
+ * depend on the code and the registered materials, so the cache is keyed by the
+ * versions of the loaded mods, the MI config and the materials.
+ */
+final class RecipeCache {
+    private static final Gson GSON = new Gson();
+    // Increment when the file format changes.
+    private static final int FORMAT_VERSION = 1;
+
+    private RecipeCache() {
+    }
+
+    private static Path getCacheFile() {
+        return FabricLoader.getInstance().getGameDir().resolve(".cache").resolve(ModernIndustrialization.MOD_ID).resolve("recipes.bin.gz");
+    }
+
+    static String computeFingerprint() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(FORMAT_VERSION);
+        // Other mods can add materials or change them, so every mod version is part
+        // of the key, not only the MI version.
+        List<ModContainer> mods = new ArrayList<>(FabricLoader.getInstance().getAllMods());
+        mods.sort(Comparator.comparing(mod -> mod.getMetadata().getId()));
+        for (ModContainer mod : mods) {
+            hasher.putString(mod.getMetadata().getId(), StandardCharsets.UTF_8);
+            hasher.putString(mod.getMetadata().getVersion().getFriendlyString(), StandardCharsets.UTF_8);
+        }
+        hasher.putString(GSON.toJson(MIConfig.getConfig()), StandardCharsets.UTF_8);
+        for (Material material : MaterialRegistry.getMaterials().values()) {
+            hasher.putString(material.name, StandardCharsets.UTF_8);
+            for (MaterialPart part : material.getParts().values()) {
+                hasher.putString(part.getItemId(), StandardCharsets.UTF_8);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @return The cached recipes, or null if the cache is missing or invalid.
+     */
+    @Nullable
+    static Map<Identifier, byte[]> tryLoad(String fingerprint) {
+        Path file = getCacheFile();
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (!in.readUTF().equals(fingerprint)) {
+                return null;
+            }
+            int recipeCount = in.readInt();
+            Map<Identifier, byte[]> recipes = new LinkedHashMap<>();
+            for (int i = 0; i < recipeCount; ++i) {
+                Identifier id = new Identifier(in.readUTF());
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                recipes.put(id, bytes);
+            }
+            return recipes;
+        } catch (IOException | RuntimeException exception) {
+            ModernIndustrialization.LOGGER.warn("Failed to read the generated recipe cache.", exception);
+            return null;
+        }
+    }
+
+    static void save(String fingerprint, Map<Identifier, byte[]> recipes) {
+        Path file = getCacheFile();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+                out.writeUTF(fingerprint);
+                out.writeInt(recipes.size());
+                for (Map.Entry<Identifier, byte[]> entry : recipes.entrySet()) {
+                    out.writeUTF(entry.getKey().toString());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException exception) {
+            ModernIndustrialization.LOGGER.warn("Failed to save the generated recipe cache.", exception);
+        }
+    }
+}
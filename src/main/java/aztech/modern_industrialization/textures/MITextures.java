@@ -23,6 +23,7 @@
  */
 package aztech.modern_industrialization.textures;
 
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.MIFluids;
 import aztech.modern_industrialization.MIRuntimeResourcePack;
 import aztech.modern_industrialization.ModernIndustrialization;
@@ -33,30 +34,57 @@ import aztech.modern_industrialization.materials.part.MaterialPart;
 import aztech.modern_industrialization.textures.coloramp.BakableTargetColoramp;
 import aztech.modern_industrialization.textures.coloramp.Coloramp;
 import aztech.modern_industrialization.textures.coloramp.DefaultColoramp;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import net.minecraft.client.texture.NativeImage;
 import net.minecraft.resource.ResourceManager;
+import org.jetbrains.annotations.Nullable;
 
 public final class MITextures {
 
+    private static final int MAX_GENERATION_THREADS = 8;
+
     public static MIRuntimeResourcePack buildResourcePack(ResourceManager manager) {
         MIRuntimeResourcePack pack = new MIRuntimeResourcePack("MI Generated textures");
-        TextureManager mtm = new TextureManager(manager, pack);
+        MIConfig config = MIConfig.getConfig();
 
-        for (BakableTargetColoramp coloramp : BakableTargetColoramp.bakableTargetColoramps) {
-            coloramp.baked(mtm);
+        String cacheFingerprint = config.cacheGeneratedTextures ? TextureCache.computeFingerprint() : null;
+        if (cacheFingerprint != null && TextureCache.tryLoad(manager, pack, cacheFingerprint)) {
+            ModernIndustrialization.LOGGER.info("Loaded the generated textures from the cache.");
+            return pack;
         }
 
+        TextureManager mtm = new TextureManager(manager, pack);
+        ExecutorService executor = config.parallelTextureGeneration ? createExecutor() : null;
+
         try {
+            List<Runnable> colorampTasks = new ArrayList<>();
+            for (BakableTargetColoramp coloramp : BakableTargetColoramp.bakableTargetColoramps) {
+                colorampTasks.add(() -> coloramp.baked(mtm));
+            }
+            runTasks(executor, colorampTasks);
+
+            // The parts of a material are generated in order, since some depend on the
+            // previous ones. Textures that depend on other materials are generated after.
+            List<Runnable> tasks = new ArrayList<>();
             for (Material material : MaterialRegistry.getMaterials().values()) {
-                for (MaterialPart part : material.getParts().values()) {
-                    part.registerTextures(mtm);
-                }
+                tasks.add(() -> {
+                    for (MaterialPart part : material.getParts().values()) {
+                        part.registerTextures(mtm);
+                    }
+                });
             }
 
             for (CraftingFluid fluid : MIFluids.FLUIDS) {
-                registerFluidTextures(mtm, fluid);
+                tasks.add(() -> registerFluidTextures(mtm, fluid));
             }
+            runTasks(executor, tasks);
 
             casingFromTexture(mtm, "lv", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/basic_machine_hull.png"));
             casingFromTexture(mtm, "mv", mtm.getAssetAsTexture("modern_industrialization:textures/blocks/advanced_machine_hull.png"));
@@ -100,13 +128,48 @@ public final class MITextures {
             dieselHandler.close();
 
             mtm.onEnd();
+
+            if (cacheFingerprint != null) {
+                TextureCache.save(cacheFingerprint, mtm);
+            }
         } catch (Throwable exception) {
             ModernIndustrialization.LOGGER.error("Failed to generate texture pack.", exception);
+        } finally {
+            mtm.close();
+            if (executor != null) {
+                executor.shutdown();
+            }
         }
         ModernIndustrialization.LOGGER.info("I used the png to destroy the png.");
         return pack;
     }
 
+    private static ExecutorService createExecutor() {
+        int threads = Math.max(1, Math.min(MAX_GENERATION_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        return Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("MI Texture Generation %d").setDaemon(true).build());
+    }
+
+    /**
+     * Run the tasks on the executor if there is one, or on the current thread
+     * otherwise, and wait for all of them to finish.
+     */
+    private static void runTasks(@Nullable ExecutorService executor, List<Runnable> tasks) throws InterruptedException, ExecutionException {
+        if (executor == null) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        } else {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
     private static String getTemplate(String materialSet, String part, String suffix) {
         return String.format("modern_industrialization:textures/materialsets/%s/%s%s.png", materialSet, part, suffix);
     }
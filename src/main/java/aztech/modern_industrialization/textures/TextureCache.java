@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.textures;
+
+import aztech.modern_industrialization.MIFluids;
+import aztech.modern_industrialization.MIRuntimeResourcePack;
+import aztech.modern_industrialization.ModernIndustrialization;
+import aztech.modern_industrialization.fluid.CraftingFluid;
+import aztech.modern_industrialization.materials.Material;
+import aztech.modern_industrialization.materials.MaterialRegistry;
+import aztech.modern_industrialization.materials.part.MaterialPart;
+import aztech.modern_industrialization.textures.coloramp.BakableTargetColoramp;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * On-disk cache of the generated textures. Along with the textures, it stores
+ * every query that the {@link TextureManager} made to the resource manager, and
+ * its result. The cache is only used if the materials are the same and every
+ * query still gives the same result, for example because no resource pack
+ * changed a template.
+ */
+final class TextureCache {
+    static final String CONTAINS = "contains:";
+    static final String READ = "read:";
+    static final String READ_LOW_PRIO = "read_low_prio:";
+    // Increment when the file format or the generation code changes.
+    private static final int FORMAT_VERSION = 1;
+
+    private TextureCache() {
+    }
+
+    private static Path getCacheFile() {
+        return FabricLoader.getInstance().getGameDir().resolve(".cache").resolve(ModernIndustrialization.MOD_ID).resolve("textures.bin");
+    }
+
+    static String hash(byte[] bytes) {
+        return Hashing.sha256().hashBytes(bytes).toString();
+    }
+
+    /**
+     * Hash the parameters of the generation that are not read from the resource
+     * manager.
+     */
+    static String computeFingerprint() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(FORMAT_VERSION);
+        FabricLoader.getInstance().getModContainer(ModernIndustrialization.MOD_ID)
+                .ifPresent(mod -> hasher.putString(mod.getMetadata().getVersion().getFriendlyString(), StandardCharsets.UTF_8));
+        for (Material material : MaterialRegistry.getMaterials().values()) {
+            hasher.putString(material.name, StandardCharsets.UTF_8);
+            hasher.putString(material.materialSet, StandardCharsets.UTF_8);
+            hasher.putString(material.coloramp.toString(), StandardCharsets.UTF_8);
+            for (MaterialPart part : material.getParts().values()) {
+                hasher.putString(part.getItemId(), StandardCharsets.UTF_8);
+            }
+        }
+        for (CraftingFluid fluid : MIFluids.FLUIDS) {
+            hasher.putString(fluid.name, StandardCharsets.UTF_8).putInt(fluid.color).putBoolean(fluid.isGas);
+        }
+        for (BakableTargetColoramp coloramp : BakableTargetColoramp.bakableTargetColoramps) {
+            hasher.putString(coloramp.toString(), StandardCharsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Add the cached textures to the pack if the cache is valid.
+     * 
+     * @return true if the cache was valid.
+     */
+    static boolean tryLoad(ResourceManager rm, MIRuntimeResourcePack pack, String fingerprint) {
+        Path file = getCacheFile();
+        if (!Files.exists(file)) {
+            return false;
+        }
+
+        Map<String, byte[]> textures = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (!in.readUTF().equals(fingerprint)) {
+                return false;
+            }
+            int inputCount = in.readInt();
+            for (int i = 0; i < inputCount; ++i) {
+                String query = in.readUTF();
+                String result = in.readUTF();
+                if (!result.equals(runQuery(rm, query))) {
+                    return false;
+                }
+            }
+            int textureCount = in.readInt();
+            for (int i = 0; i < textureCount; ++i) {
+                String path = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                textures.put(path, bytes);
+            }
+        } catch (IOException | RuntimeException exception) {
+            ModernIndustrialization.LOGGER.warn("Failed to read the generated texture cache.", exception);
+            return false;
+        }
+
+        textures.forEach(pack::addAsset);
+        return true;
+    }
+
+    static void save(String fingerprint, TextureManager mtm) {
+        Path file = getCacheFile();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeUTF(fingerprint);
+                Map<String, String> inputs = mtm.getInputs();
+                out.writeInt(inputs.size());
+                for (Map.Entry<String, String> entry : inputs.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+                Map<String, byte[]> textures = mtm.getGeneratedTextures();
+                out.writeInt(textures.size());
+                for (Map.Entry<String, byte[]> entry : textures.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException exception) {
+            ModernIndustrialization.LOGGER.warn("Failed to save the generated texture cache.", exception);
+        }
+    }
+
+    /**
+     * Run a query again, and return its result in the same format as the
+     * {@link TextureManager}.
+     */
+    private static String runQuery(ResourceManager rm, String query) {
+        try {
+            if (query.startsWith(CONTAINS)) {
+                return Boolean.toString(rm.containsResource(new Identifier(query.substring(CONTAINS.length()))));
+            } else if (query.startsWith(READ)) {
+                try (Resource resource = rm.getResource(new Identifier(query.substring(READ.length())))) {
+                    return hash(IOUtils.toByteArray(resource.getInputStream()));
+                }
+            } else if (query.startsWith(READ_LOW_PRIO)) {
+                List<Resource> resources = rm.getAllResources(new Identifier(query.substring(READ_LOW_PRIO.length())));
+                try {
+                    return hash(IOUtils.toByteArray(resources.get(0).getInputStream()));
+                } finally {
+                    for (Resource resource : resources) {
+                        resource.close();
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            // The resource doesn't exist anymore, so the cache is invalid.
+        }
+        return "";
+    }
+}
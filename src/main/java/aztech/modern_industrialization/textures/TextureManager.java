@@ -28,17 +28,33 @@ import aztech.modern_industrialization.util.ResourceUtil;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import net.minecraft.client.texture.NativeImage;
 import net.minecraft.resource.Resource;
 import net.minecraft.resource.ResourceManager;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.util.Identifier;
 
+/**
+ * Access to the textures during the generation of the texture pack. It may be
+ * used from several threads at the same time.
+ */
 public class TextureManager {
     private final ResourceManager rm;
     private final MIRuntimeResourcePack texturePack;
-    private final List<Runnable> endRunnables = new ArrayList<>();
+    private final List<Runnable> endRunnables = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * Decoded textures of the resource manager, never modified: callers get a copy.
+     */
+    private final Map<String, NativeImage> decodedAssets = new ConcurrentHashMap<>();
+    /**
+     * Every query to the resource manager and its result, see {@link TextureCache}.
+     */
+    private final Map<String, String> inputs = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> generatedTextures = new ConcurrentHashMap<>();
 
     public TextureManager(ResourceManager rm, MIRuntimeResourcePack texturePack) {
         this.rm = rm;
@@ -46,13 +62,24 @@ public class TextureManager {
     }
 
     public boolean hasAsset(String asset) {
-        return rm.containsResource(new Identifier(asset)) || texturePack.contains(ResourceType.CLIENT_RESOURCES, new Identifier(asset));
+        return containsResource(asset) || texturePack.contains(ResourceType.CLIENT_RESOURCES, new Identifier(asset));
     }
 
     public NativeImage getAssetAsTexture(String textureId) throws IOException {
-        if (rm.containsResource(new Identifier(textureId))) {
-            Resource texture = rm.getResource(new Identifier(textureId));
-            return NativeImage.read(new ByteArrayInputStream(ResourceUtil.getBytes(texture)));
+        if (containsResource(textureId)) {
+            NativeImage decoded = decodedAssets.get(textureId);
+            if (decoded == null) {
+                byte[] bytes = ResourceUtil.getBytes(rm.getResource(new Identifier(textureId)));
+                inputs.put(TextureCache.READ + textureId, TextureCache.hash(bytes));
+                decoded = NativeImage.read(new ByteArrayInputStream(bytes));
+                NativeImage previous = decodedAssets.putIfAbsent(textureId, decoded);
+                if (previous != null) {
+                    // Another thread decoded it first.
+                    decoded.close();
+                    decoded = previous;
+                }
+            }
+            return TextureHelper.copy(decoded);
         } else if (texturePack.contains(ResourceType.CLIENT_RESOURCES, new Identifier(textureId))) {
             return NativeImage.read(texturePack.open(ResourceType.CLIENT_RESOURCES, new Identifier(textureId)));
         } else {
@@ -65,9 +92,11 @@ public class TextureManager {
      * let resource packs override this texture).
      */
     public NativeImage getAssetAsTextureLowPrio(String textureId) throws IOException {
-        if (rm.containsResource(new Identifier(textureId))) {
+        if (containsResource(textureId)) {
             Resource texture = rm.getAllResources(new Identifier(textureId)).get(0);
-            return NativeImage.read(new ByteArrayInputStream(ResourceUtil.getBytes(texture)));
+            byte[] bytes = ResourceUtil.getBytes(texture);
+            inputs.put(TextureCache.READ_LOW_PRIO + textureId, TextureCache.hash(bytes));
+            return NativeImage.read(new ByteArrayInputStream(bytes));
         } else {
             throw new IOException("Couldn't find texture " + textureId);
         }
@@ -81,15 +110,23 @@ public class TextureManager {
     }
 
     public void addTexture(String textureId, NativeImage image, boolean closeImage) throws IOException {
-        Identifier id = new Identifier(textureId);
-        if (!rm.containsResource(id)) {
-            texturePack.addAsset(textureId.replace(':', '/'), image.getBytes());
+        if (!containsResource(textureId)) {
+            String path = textureId.replace(':', '/');
+            byte[] bytes = image.getBytes();
+            texturePack.addAsset(path, bytes);
+            generatedTextures.put(path, bytes);
         }
         if (closeImage) {
             image.close();
         }
     }
 
+    private boolean containsResource(String textureId) {
+        boolean contains = rm.containsResource(new Identifier(textureId));
+        inputs.put(TextureCache.CONTAINS + textureId, Boolean.toString(contains));
+        return contains;
+    }
+
     public void runAtEnd(Runnable runnable) {
         endRunnables.add(runnable);
     }
@@ -100,4 +137,22 @@ public class TextureManager {
         }
         endRunnables.clear();
     }
+
+    /**
+     * Free the decoded textures.
+     */
+    void close() {
+        for (NativeImage image : decodedAssets.values()) {
+            image.close();
+        }
+        decodedAssets.clear();
+    }
+
+    Map<String, String> getInputs() {
+        return inputs;
+    }
+
+    Map<String, byte[]> getGeneratedTextures() {
+        return generatedTextures;
+    }
 }
@@ -25,25 +25,37 @@ package aztech.modern_industrialization.textures.coloramp;
 
 import aztech.modern_industrialization.textures.TextureHelper;
 import aztech.modern_industrialization.textures.TextureManager;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import net.minecraft.client.texture.NativeImage;
 
 public class BakableTargetColoramp implements Coloramp {
 
     public static final ArrayList<BakableTargetColoramp> bakableTargetColoramps = new ArrayList<>();
 
+    /**
+     * Number of entries of the baked lookup table. Luminances are computed from
+     * 8-bit channels, so finer steps would not make a visible difference.
+     */
+    private static final int LUT_SIZE = 256;
+
     private final int meanRGB;
-    private boolean isBaked = false;
     private String from, target;
 
-    private final ArrayList<Double> fromLum = new ArrayList<>();
-    private final ArrayList<Integer> toRgb = new ArrayList<>();
+    private double[] fromLum;
+    private double[] virtualIndex;
+    private int[] toRgb;
+    private double[] virtualIndexRgb;
 
-    private ArrayList<Double> virtualIndex;
-    private ArrayList<Double> virtualIndexRgb;
+    /**
+     * RGB value for each quantized luminance, or null if the coloramp was not
+     * baked yet.
+     */
+    private int[] lut;
 
     public BakableTargetColoramp(int meanRGB, String from, String target) {
         this.meanRGB = meanRGB;
@@ -58,35 +70,42 @@ public class BakableTargetColoramp implements Coloramp {
 
     @Override
     public int getRGB(double luminance) {
-        if (!isBaked) {
+        if (lut == null) {
             throw new IllegalStateException(String.format("Unbaked coloramp with mean RGB of %05X", meanRGB));
         }
         if (luminance > 1.0 || luminance < 0.0) {
             throw new IllegalStateException(String.format("Invalid luminence %f", luminance));
         }
 
+        return lut[(int) (luminance * (LUT_SIZE - 1) + 0.5)];
+    }
+
+    /**
+     * Exact value of the coloramp, only used to fill the lookup table.
+     */
+    private int interpolate(double luminance) {
         if (luminance == 0.0) {
             return 0x000000;
         } else if (luminance == 1.0) {
             return 0xFFFFFF;
         }
 
-        int index = Collections.binarySearch(fromLum, luminance);
+        int index = Arrays.binarySearch(fromLum, luminance);
         if (index < 0) {
             index = -(index + 1);
         }
 
-        double vup = fromLum.get(index);
-        double xup = virtualIndex.get(index);
-        double vdown = fromLum.get(index - 1);
-        double xdown = virtualIndex.get(index - 1);
+        double vup = fromLum[index];
+        double xup = virtualIndex[index];
+        double vdown = fromLum[index - 1];
+        double xdown = virtualIndex[index - 1];
 
         // lum = vdown + ((x - xdown)/(xup - xdown))*(vup - vdow)
         // => x = (lum - vdown)*(xup - xdown)/ (vup - vdown) + xdown
 
         double interpolation = (luminance - vdown) * (xup - xdown) / (vup - vdown) + xdown;
 
-        int r1 = Collections.binarySearch(virtualIndexRgb, interpolation);
+        int r1 = Arrays.binarySearch(virtualIndexRgb, interpolation);
         if (r1 < 0) {
             r1 = -(r1 + 1);
         }
@@ -95,15 +114,15 @@ public class BakableTargetColoramp implements Coloramp {
             return 0x000000;
         }
 
-        double iup = virtualIndexRgb.get(r1);
-        double idown = virtualIndexRgb.get(r1 - 1);
+        double iup = virtualIndexRgb[r1];
+        double idown = virtualIndexRgb[r1 - 1];
 
         int r, g, b;
 
         double frac = (interpolation - idown) / (iup - idown);
-        r = (int) (TextureHelper.getR(toRgb.get(r1 - 1)) * (1 - frac) + frac * (TextureHelper.getR(toRgb.get(r1))));
-        g = (int) (TextureHelper.getG(toRgb.get(r1 - 1)) * (1 - frac) + frac * (TextureHelper.getG(toRgb.get(r1))));
-        b = (int) (TextureHelper.getB(toRgb.get(r1 - 1)) * (1 - frac) + frac * (TextureHelper.getB(toRgb.get(r1))));
+        r = (int) (TextureHelper.getR(toRgb[r1 - 1]) * (1 - frac) + frac * (TextureHelper.getR(toRgb[r1])));
+        g = (int) (TextureHelper.getG(toRgb[r1 - 1]) * (1 - frac) + frac * (TextureHelper.getG(toRgb[r1])));
+        b = (int) (TextureHelper.getB(toRgb[r1 - 1]) * (1 - frac) + frac * (TextureHelper.getB(toRgb[r1])));
 
         return TextureHelper.toRGB(r, g, b);
     }
@@ -113,132 +132,159 @@ public class BakableTargetColoramp implements Coloramp {
         return meanRGB;
     }
 
+    @Override
+    public String toString() {
+        return String.format("BakableTargetColoramp{meanRGB=%06X, from=%s, target=%s}", meanRGB, from, target);
+    }
+
     public void baked(TextureManager textureManager) {
         try {
             NativeImage from = textureManager.getAssetAsTexture(this.from);
             NativeImage to = textureManager.getAssetAsTexture(this.target);
 
-            double maxFromLum = 0.0;
-
-            for (int i = 0; i < from.getWidth(); i++) {
-                for (int j = 0; j < from.getHeight(); j++) {
-                    int argb = from.getPixelColor(i, j);
-                    int a = TextureHelper.getA(argb);
-                    if (a >= 127) {
-                        double lum = TextureHelper.getLuminance(argb);
-                        maxFromLum = Math.max(lum, maxFromLum);
-                        fromLum.add(lum);
-                    }
-                }
+            bake(getPixels(from), getPixels(to));
+            from.close();
+            to.close();
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int[] getPixels(NativeImage image) {
+        int[] pixels = new int[image.getWidth() * image.getHeight()];
+        int k = 0;
+        for (int i = 0; i < image.getWidth(); i++) {
+            for (int j = 0; j < image.getHeight(); j++) {
+                pixels[k++] = image.getPixelColor(i, j);
             }
+        }
+        return pixels;
+    }
 
-            fromLum.add(0.0);
-            fromLum.add(1.0);
+    /**
+     * Bake the coloramp from the ARGB pixels of the from and target textures.
+     */
+    public void bake(int[] fromPixels, int[] toPixels) {
+        double maxFromLum = 0.0;
+        DoubleArrayList fromLumList = new DoubleArrayList();
+
+        for (int argb : fromPixels) {
+            int a = TextureHelper.getA(argb);
+            if (a >= 127) {
+                double lum = TextureHelper.getLuminance(argb);
+                maxFromLum = Math.max(lum, maxFromLum);
+                fromLumList.add(lum);
+            }
+        }
 
-            Collections.sort(fromLum);
+        fromLumList.add(0.0);
+        fromLumList.add(1.0);
 
-            virtualIndex = new ArrayList<>();
-            ArrayList<Double> fromLum2 = new ArrayList<>();
+        double[] sortedLum = fromLumList.toDoubleArray();
+        Arrays.sort(sortedLum);
 
-            {
-                int i = 0;
-                while (i < fromLum.size()) {
+        DoubleArrayList virtualIndexList = new DoubleArrayList();
+        DoubleArrayList fromLum2 = new DoubleArrayList();
 
-                    double s = fromLum.get(i);
-                    double index = ((double) i) / (fromLum.size() - 1);
+        {
+            int i = 0;
+            while (i < sortedLum.length) {
 
-                    int j = i;
+                double s = sortedLum[i];
+                double index = ((double) i) / (sortedLum.length - 1);
 
-                    while (j + 1 < fromLum.size() && fromLum.get(j + 1) == s) {
-                        j++;
-                        index += 0.5 / (fromLum.size() - 1);
-                    }
+                int j = i;
 
-                    fromLum2.add(s);
-                    virtualIndex.add(index);
-                    i = j + 1;
+                while (j + 1 < sortedLum.length && sortedLum[j + 1] == s) {
+                    j++;
+                    index += 0.5 / (sortedLum.length - 1);
                 }
+
+                fromLum2.add(s);
+                virtualIndexList.add(index);
+                i = j + 1;
             }
+        }
 
-            fromLum.clear();
-            fromLum.addAll(fromLum2);
-
-            int rgbMaxLum = 0;
-            double maxToLum = 0.0;
-
-            for (int i = 0; i < to.getWidth(); i++) {
-                for (int j = 0; j < to.getHeight(); j++) {
-                    int argb = to.getPixelColor(i, j);
-                    int a = TextureHelper.getA(argb);
-                    if (a >= 127) {
-                        toRgb.add(argb);
-                        double lum = TextureHelper.getLuminance(argb);
-                        if (lum > maxToLum) {
-                            maxToLum = lum;
-                            rgbMaxLum = argb;
-                        }
-                    }
+        fromLum = fromLum2.toDoubleArray();
+        virtualIndex = virtualIndexList.toDoubleArray();
+
+        int rgbMaxLum = 0;
+        double maxToLum = 0.0;
+        IntArrayList toRgbList = new IntArrayList();
+
+        for (int argb : toPixels) {
+            int a = TextureHelper.getA(argb);
+            if (a >= 127) {
+                toRgbList.add(argb);
+                double lum = TextureHelper.getLuminance(argb);
+                if (lum > maxToLum) {
+                    maxToLum = lum;
+                    rgbMaxLum = argb;
                 }
             }
+        }
 
-            int r = Math.min((int) (1 / maxFromLum * TextureHelper.getR(rgbMaxLum)), 255);
-            int g = Math.min((int) (1 / maxFromLum * TextureHelper.getG(rgbMaxLum)), 255);
-            int b = Math.min((int) (1 / maxFromLum * TextureHelper.getB(rgbMaxLum)), 255);
-
-            toRgb.add(0xFF000000);
-            toRgb.add(TextureHelper.fromArgb(255, r, g, b));
+        int r = Math.min((int) (1 / maxFromLum * TextureHelper.getR(rgbMaxLum)), 255);
+        int g = Math.min((int) (1 / maxFromLum * TextureHelper.getG(rgbMaxLum)), 255);
+        int b = Math.min((int) (1 / maxFromLum * TextureHelper.getB(rgbMaxLum)), 255);
 
-            Collections.sort(toRgb, Comparator.comparingDouble(TextureHelper::getLuminance));
+        toRgbList.add(0xFF000000);
+        toRgbList.add(TextureHelper.fromArgb(255, r, g, b));
 
-            virtualIndexRgb = new ArrayList<>();
-            ArrayList<Integer> toRgb2 = new ArrayList<>();
+        // Merge sort is stable, like the previous sort of the boxed list.
+        int[] sortedRgb = toRgbList.toIntArray();
+        IntArrays.mergeSort(sortedRgb, (rgb1, rgb2) -> Double.compare(TextureHelper.getLuminance(rgb1), TextureHelper.getLuminance(rgb2)));
 
-            {
-                int i = 0;
-                while (i < toRgb.size()) {
+        DoubleArrayList virtualIndexRgbList = new DoubleArrayList();
+        IntArrayList toRgb2 = new IntArrayList();
 
-                    int rgb = toRgb.get(i);
-                    double index = ((double) i) / (toRgb.size() - 1);
+        {
+            int i = 0;
+            while (i < sortedRgb.length) {
 
-                    int j = i;
+                int rgb = sortedRgb[i];
+                double index = ((double) i) / (sortedRgb.length - 1);
 
-                    while (j + 1 < toRgb.size() && toRgb.get(j + 1) == rgb) {
-                        j++;
-                        index += 0.5 / (toRgb.size() - 1);
-                    }
+                int j = i;
 
-                    toRgb2.add(rgb);
-                    virtualIndexRgb.add(index);
-                    i = j + 1;
+                while (j + 1 < sortedRgb.length && sortedRgb[j + 1] == rgb) {
+                    j++;
+                    index += 0.5 / (sortedRgb.length - 1);
                 }
+
+                toRgb2.add(rgb);
+                virtualIndexRgbList.add(index);
+                i = j + 1;
             }
+        }
 
-            toRgb.clear();
-            toRgb.addAll(toRgb2);
+        toRgb = toRgb2.toIntArray();
+        virtualIndexRgb = virtualIndexRgbList.toDoubleArray();
 
-            double index0 = virtualIndexRgb.get(0);
+        double index0 = virtualIndexRgb[0];
 
-            for (int i = 0; i < virtualIndexRgb.size(); i++) {
-                virtualIndexRgb.set(i, virtualIndexRgb.get(i) - index0);
-            }
+        for (int i = 0; i < virtualIndexRgb.length; i++) {
+            virtualIndexRgb[i] -= index0;
+        }
 
-            double indexEnd = virtualIndexRgb.get(virtualIndexRgb.size() - 1);
+        double indexEnd = virtualIndexRgb[virtualIndexRgb.length - 1];
 
-            for (int i = 0; i < virtualIndexRgb.size(); i++) {
-                virtualIndexRgb.set(i, virtualIndexRgb.get(i) / indexEnd);
-            }
+        for (int i = 0; i < virtualIndexRgb.length; i++) {
+            virtualIndexRgb[i] /= indexEnd;
+        }
 
-            if (fromLum.size() <= 1 || toRgb.size() <= 1) {
-                throw new IllegalStateException(
-                        String.format("Could not correctly processed the coloramp from = %s, to = %s", this.from, this.target));
-            }
-            isBaked = true;
-            from.close();
-            to.close();
+        if (fromLum.length <= 1 || toRgb.length <= 1) {
+            throw new IllegalStateException(
+                    String.format("Could not correctly processed the coloramp from = %s, to = %s", this.from, this.target));
+        }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        int[] lut = new int[LUT_SIZE];
+        for (int i = 0; i < LUT_SIZE; i++) {
+            lut[i] = interpolate((double) i / (LUT_SIZE - 1));
         }
+        this.lut = lut;
     }
 
 }
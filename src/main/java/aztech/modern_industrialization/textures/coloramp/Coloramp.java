@@ -23,6 +23,11 @@
  */
 package aztech.modern_industrialization.textures.coloramp;
 
+/**
+ * Colors the luminance of a grayscale texture. Implementations must have a
+ * {@link Object#toString} that describes all their parameters, since it is part
+ * of the fingerprint of the texture cache.
+ */
 public interface Coloramp {
 
     public int getRGB(double luminance);
@@ -49,4 +49,9 @@ public class ColorampDepleted implements Coloramp {
         Color.RGBtoHSB(TextureHelper.getRrgb(rgb), TextureHelper.getGrgb(rgb), TextureHelper.getBrgb(rgb), hsbval);
         return 0xFFFFFF & Color.HSBtoRGB(hsbval[0], 0.2f * hsbval[0], 0.5f * hsbval[2]);
     }
+
+    @Override
+    public String toString() {
+        return "ColorampDepleted{coloramp=" + coloramp + "}";
+    }
 }
@@ -44,4 +44,9 @@ public class ColorampHue implements Coloramp {
     public int getMeanRGB() {
         return TextureHelper.setHue(coloramp.getMeanRGB(), hue);
     }
+
+    @Override
+    public String toString() {
+        return "ColorampHue{hue=" + hue + ", coloramp=" + coloramp + "}";
+    }
 }
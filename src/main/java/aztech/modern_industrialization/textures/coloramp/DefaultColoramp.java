@@ -45,4 +45,9 @@ public class DefaultColoramp implements Coloramp {
     public int getMeanRGB() {
         return rgb;
     }
+
+    @Override
+    public String toString() {
+        return String.format("DefaultColoramp{rgb=%06X}", rgb);
+    }
 }
@@ -43,4 +43,9 @@ public class HotIngotColoramp implements Coloramp {
     public int getMeanRGB() {
         return from.getMeanRGB();
     }
+
+    @Override
+    public String toString() {
+        return "HotIngotColoramp{from=" + from + ", bias=" + bias + ", gamma=" + gamma + "}";
+    }
 }
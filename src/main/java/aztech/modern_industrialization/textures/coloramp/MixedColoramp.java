@@ -48,4 +48,9 @@ public class MixedColoramp implements Coloramp {
     public int getMeanRGB() {
         return TextureHelper.mixRGB(coloramp1.getMeanRGB(), coloramp2.getMeanRGB(), meanMix);
     }
+
+    @Override
+    public String toString() {
+        return "MixedColoramp{coloramp1=" + coloramp1 + ", coloramp2=" + coloramp2 + ", meanMix=" + meanMix + "}";
+    }
 }
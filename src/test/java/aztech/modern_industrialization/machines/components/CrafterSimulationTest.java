@@ -0,0 +1,534 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import aztech.modern_industrialization.MIIdentifier;
+import aztech.modern_industrialization.inventory.AbstractConfigurableStack;
+import aztech.modern_industrialization.inventory.ConfigurableFluidStack;
+import aztech.modern_industrialization.inventory.ConfigurableItemStack;
+import aztech.modern_industrialization.machines.recipe.MachineRecipe;
+import aztech.modern_industrialization.machines.recipe.MachineRecipeType;
+import aztech.modern_industrialization.util.Simulation;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.fluid.Fluids;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.recipe.Ingredient;
+import net.minecraft.world.World;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the take and put functions of {@link CrafterComponent}, which
+ * simulate on scratch arrays, behave exactly like the previous implementation,
+ * which simulated on copies of the stacks. That implementation is kept below as
+ * the reference.
+ *
+ * <p>
+ * Every case runs the same sequence of calls on a random inventory and recipe,
+ * once with the crafter and once with the reference, and compares the results
+ * and all the stacks after each call. The inventories have partial and full
+ * stacks, reduced capacities and player or machine locks, and the recipes have
+ * probabilistic inputs and outputs, which use the same seed on both sides.
+ */
+public class CrafterSimulationTest {
+    private static final Item[] ITEMS = { Items.IRON_INGOT, Items.GOLD_INGOT, Items.ENDER_PEARL, Items.DIAMOND_SWORD };
+    private static final Fluid[] FLUIDS = { Fluids.WATER, Fluids.LAVA };
+    private static final float[] PROBABILITIES = { 1, 1, 0.5f, 0 };
+    private static final long BUCKET = 81000;
+    private static final int CASE_COUNT = 10000;
+
+    @Test
+    public void testSameAsReference() {
+        MachineRecipeType recipeType = new MachineRecipeType(new MIIdentifier("crafter_simulation_test")).withItemInputs().withFluidInputs()
+                .withItemOutputs().withFluidOutputs();
+        for (int seed = 0; seed < CASE_COUNT; ++seed) {
+            runCase(recipeType, seed);
+        }
+    }
+
+    private static void runCase(MachineRecipeType recipeType, int seed) {
+        Random random = new Random(seed);
+        TestInventory referenceInventory = randomInventory(random);
+        TestInventory crafterInventory = referenceInventory.copy();
+        MachineRecipe recipe = randomRecipe(recipeType, random, seed);
+        int maxFluidOutputs = 1 + random.nextInt(3);
+
+        Reference reference = new Reference(referenceInventory, new Random(seed), maxFluidOutputs);
+        Random crafterRandom = new Random(seed);
+        CrafterComponent crafter = new CrafterComponent(crafterInventory, new TestBehavior(recipeType, maxFluidOutputs)) {
+            @Override
+            Random getRandom() {
+                return crafterRandom;
+            }
+        };
+
+        // The calls of updateActiveRecipe and tickRecipe, then the acting variants,
+        // twice so that the second run sees the outputs and locks of the first one.
+        for (int run = 0; run < 2; ++run) {
+            String context = "case " + seed + ", run " + run;
+            check(context + ", takeItemInputs(simulate)", reference.takeItemInputs(recipe, true), crafter.takeItemInputs(recipe, true),
+                    referenceInventory, crafterInventory);
+            check(context + ", takeFluidInputs(simulate)", reference.takeFluidInputs(recipe, true), crafter.takeFluidInputs(recipe, true),
+                    referenceInventory, crafterInventory);
+            check(context + ", putItemOutputs(simulate)", reference.putItemOutputs(recipe, true, false),
+                    crafter.putItemOutputs(recipe, true, false), referenceInventory, crafterInventory);
+            check(context + ", putFluidOutputs(simulate)", reference.putFluidOutputs(recipe, true, false),
+                    crafter.putFluidOutputs(recipe, true, false), referenceInventory, crafterInventory);
+            check(context + ", takeItemInputs(act)", reference.takeItemInputs(recipe, false), crafter.takeItemInputs(recipe, false),
+                    referenceInventory, crafterInventory);
+            check(context + ", takeFluidInputs(act)", reference.takeFluidInputs(recipe, false), crafter.takeFluidInputs(recipe, false),
+                    referenceInventory, crafterInventory);
+            check(context + ", putItemOutputs(simulate, lock)", reference.putItemOutputs(recipe, true, true),
+                    crafter.putItemOutputs(recipe, true, true), referenceInventory, crafterInventory);
+            check(context + ", putFluidOutputs(simulate, lock)", reference.putFluidOutputs(recipe, true, true),
+                    crafter.putFluidOutputs(recipe, true, true), referenceInventory, crafterInventory);
+            check(context + ", putItemOutputs(act)", reference.putItemOutputs(recipe, false, false),
+                    crafter.putItemOutputs(recipe, false, false), referenceInventory, crafterInventory);
+            check(context + ", putFluidOutputs(act)", reference.putFluidOutputs(recipe, false, false),
+                    crafter.putFluidOutputs(recipe, false, false), referenceInventory, crafterInventory);
+        }
+    }
+
+    private static void check(String context, boolean expectedResult, boolean actualResult, TestInventory expected, TestInventory actual) {
+        assertEquals(expectedResult, actualResult, context);
+        ToLongFunction<ConfigurableItemStack> itemCapacity = ConfigurableItemStack::getAdjustedCapacity;
+        ToLongFunction<ConfigurableFluidStack> fluidCapacity = ConfigurableFluidStack::getCapacity;
+        checkStacks(context + ", item input", expected.itemInputs, actual.itemInputs, itemCapacity);
+        checkStacks(context + ", item output", expected.itemOutputs, actual.itemOutputs, itemCapacity);
+        checkStacks(context + ", fluid input", expected.fluidInputs, actual.fluidInputs, fluidCapacity);
+        checkStacks(context + ", fluid output", expected.fluidOutputs, actual.fluidOutputs, fluidCapacity);
+    }
+
+    private static <S extends AbstractConfigurableStack<?, ?>> void checkStacks(String context, List<S> expected, List<S> actual,
+            ToLongFunction<S> capacity) {
+        for (int i = 0; i < expected.size(); ++i) {
+            S expectedStack = expected.get(i);
+            S actualStack = actual.get(i);
+            if (!expectedStack.equals(actualStack) || capacity.applyAsLong(expectedStack) != capacity.applyAsLong(actualStack)) {
+                fail(context + " " + i + ": expected " + describe(expectedStack, capacity) + " but got "
+                        + describe(actualStack, capacity));
+            }
+        }
+    }
+
+    private static <S extends AbstractConfigurableStack<?, ?>> String describe(S stack, ToLongFunction<S> capacity) {
+        return String.format("%s x %d/%d (locked to %s, machine %b, player %b)", stack.getResource().getObject(), stack.getAmount(),
+                capacity.applyAsLong(stack), stack.getLockedInstance(), stack.isMachineLocked(), stack.isPlayerLocked());
+    }
+
+    private static TestInventory randomInventory(Random random) {
+        TestInventory inventory = new TestInventory();
+        for (int i = random.nextInt(4); i > 0; --i) {
+            inventory.itemInputs.add(randomItemStack(random, ConfigurableItemStack.standardInputSlot(), false));
+        }
+        for (int i = random.nextInt(4); i > 0; --i) {
+            inventory.itemOutputs.add(randomItemStack(random, ConfigurableItemStack.standardOutputSlot(), true));
+        }
+        for (int i = random.nextInt(3); i > 0; --i) {
+            ConfigurableFluidStack stack = ConfigurableFluidStack.standardInputSlot(randomFluidAmount(random));
+            inventory.fluidInputs.add(randomFluidStack(random, stack, false));
+        }
+        for (int i = random.nextInt(3); i > 0; --i) {
+            ConfigurableFluidStack stack = ConfigurableFluidStack.standardOutputSlot(randomFluidAmount(random));
+            inventory.fluidOutputs.add(randomFluidStack(random, stack, true));
+        }
+        return inventory;
+    }
+
+    private static ConfigurableItemStack randomItemStack(Random random, ConfigurableItemStack stack, boolean lockable) {
+        if (random.nextInt(4) != 0) {
+            Item item = randomItem(random);
+            stack.setKey(ItemVariant.of(item));
+            // Full or partial stack.
+            stack.setAmount(random.nextBoolean() ? item.getMaxCount() : 1 + random.nextInt(item.getMaxCount()));
+        }
+        for (int i = random.nextInt(3); i > 0; --i) {
+            stack.adjustCapacity(false, random.nextBoolean());
+        }
+        if (lockable) {
+            randomLock(random, stack, randomItem(random));
+        }
+        return stack;
+    }
+
+    private static ConfigurableFluidStack randomFluidStack(Random random, ConfigurableFluidStack stack, boolean lockable) {
+        if (random.nextInt(4) != 0) {
+            stack.setKey(FluidVariant.of(randomFluid(random)));
+            // Full or partial stack.
+            stack.setAmount(random.nextBoolean() ? stack.getCapacity() : 1 + random.nextInt((int) stack.getCapacity()));
+        }
+        if (lockable) {
+            randomLock(random, stack, randomFluid(random));
+        }
+        return stack;
+    }
+
+    /**
+     * Lock the stack like a player or a machine would, so that the locked instance
+     * is always compatible with the contents of the stack.
+     */
+    private static <T> void randomLock(Random random, AbstractConfigurableStack<T, ?> stack, T instance) {
+        switch (random.nextInt(4)) {
+        case 0:
+            stack.togglePlayerLock();
+            break;
+        case 1:
+            stack.playerLock(instance, Simulation.ACT);
+            break;
+        case 2:
+            stack.enableMachineLock(stack.isResourceBlank() ? instance : stack.getResource().getObject());
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static MachineRecipe randomRecipe(MachineRecipeType recipeType, Random random, int seed) {
+        JsonObject json = new JsonObject();
+        json.addProperty("eu", 1);
+        json.addProperty("duration", 1);
+        JsonObject fluid = new JsonObject();
+        fluid.addProperty("fluid", "minecraft:water");
+        fluid.addProperty("amount", 1);
+        json.add("fluid_inputs", fluid);
+        json.add("fluid_outputs", fluid);
+        MachineRecipe recipe = recipeType.read(new MIIdentifier("crafter_simulation_test_" + seed), json);
+
+        recipe.itemInputs = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; --i) {
+            Ingredient ingredient = random.nextBoolean() ? Ingredient.ofItems(randomItem(random))
+                    : Ingredient.ofItems(randomItem(random), randomItem(random));
+            recipe.itemInputs.add(new MachineRecipe.ItemInput(ingredient, 1 + random.nextInt(20), randomProbability(random)));
+        }
+        recipe.fluidInputs = new ArrayList<>();
+        for (int i = random.nextInt(3); i > 0; --i) {
+            Fluid fluid = randomFluid(random);
+            recipe.fluidInputs.add(new MachineRecipe.FluidInput(fluid, randomFluidAmount(random), randomProbability(random)));
+        }
+        recipe.itemOutputs = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; --i) {
+            recipe.itemOutputs.add(new MachineRecipe.ItemOutput(randomItem(random), 1 + random.nextInt(20), randomProbability(random)));
+        }
+        recipe.fluidOutputs = new ArrayList<>();
+        for (int i = random.nextInt(3); i > 0; --i) {
+            Fluid fluid = randomFluid(random);
+            recipe.fluidOutputs.add(new MachineRecipe.FluidOutput(fluid, randomFluidAmount(random), randomProbability(random)));
+        }
+        return recipe;
+    }
+
+    private static Item randomItem(Random random) {
+        return ITEMS[random.nextInt(ITEMS.length)];
+    }
+
+    private static Fluid randomFluid(Random random) {
+        return FLUIDS[random.nextInt(FLUIDS.length)];
+    }
+
+    private static long randomFluidAmount(Random random) {
+        return (1 + random.nextInt(8)) * BUCKET;
+    }
+
+    private static float randomProbability(Random random) {
+        return PROBABILITIES[random.nextInt(PROBABILITIES.length)];
+    }
+
+    private static class TestInventory implements CrafterComponent.Inventory {
+        final List<ConfigurableItemStack> itemInputs;
+        final List<ConfigurableItemStack> itemOutputs;
+        final List<ConfigurableFluidStack> fluidInputs;
+        final List<ConfigurableFluidStack> fluidOutputs;
+
+        TestInventory() {
+            this(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        }
+
+        TestInventory(List<ConfigurableItemStack> itemInputs, List<ConfigurableItemStack> itemOutputs,
+                List<ConfigurableFluidStack> fluidInputs, List<ConfigurableFluidStack> fluidOutputs) {
+            this.itemInputs = itemInputs;
+            this.itemOutputs = itemOutputs;
+            this.fluidInputs = fluidInputs;
+            this.fluidOutputs = fluidOutputs;
+        }
+
+        TestInventory copy() {
+            return new TestInventory(ConfigurableItemStack.copyList(itemInputs), ConfigurableItemStack.copyList(itemOutputs),
+                    ConfigurableFluidStack.copyList(fluidInputs), ConfigurableFluidStack.copyList(fluidOutputs));
+        }
+
+        @Override
+        public List<ConfigurableItemStack> getItemInputs() {
+            return itemInputs;
+        }
+
+        @Override
+        public List<ConfigurableItemStack> getItemOutputs() {
+            return itemOutputs;
+        }
+
+        @Override
+        public List<ConfigurableFluidStack> getFluidInputs() {
+            return fluidInputs;
+        }
+
+        @Override
+        public List<ConfigurableFluidStack> getFluidOutputs() {
+            return fluidOutputs;
+        }
+    }
+
+    private static class TestBehavior implements CrafterComponent.Behavior {
+        private final MachineRecipeType recipeType;
+        private final int maxFluidOutputs;
+
+        TestBehavior(MachineRecipeType recipeType, int maxFluidOutputs) {
+            this.recipeType = recipeType;
+            this.maxFluidOutputs = maxFluidOutputs;
+        }
+
+        @Override
+        public long consumeEu(long max, Simulation simulation) {
+            return max;
+        }
+
+        @Override
+        public MachineRecipeType recipeType() {
+            return recipeType;
+        }
+
+        @Override
+        public long getBaseRecipeEu() {
+            return 1;
+        }
+
+        @Override
+        public long getMaxRecipeEu() {
+            return 1;
+        }
+
+        /**
+         * Only the take and put functions are called, and they don't use the world.
+         */
+        @Override
+        public World getCrafterWorld() {
+            return null;
+        }
+
+        @Override
+        public int getMaxFluidOutputs() {
+            return maxFluidOutputs;
+        }
+    }
+
+    /**
+     * The take and put functions as they were before the scratch arrays, which
+     * simulate on copies of the stacks.
+     */
+    private static class Reference {
+        private final CrafterComponent.Inventory inventory;
+        private final Random random;
+        private final int maxFluidOutputs;
+
+        Reference(CrafterComponent.Inventory inventory, Random random, int maxFluidOutputs) {
+            this.inventory = inventory;
+            this.random = random;
+            this.maxFluidOutputs = maxFluidOutputs;
+        }
+
+        boolean takeItemInputs(MachineRecipe recipe, boolean simulate) {
+            List<ConfigurableItemStack> baseList = inventory.getItemInputs();
+            List<ConfigurableItemStack> stacks = simulate ? ConfigurableItemStack.copyList(baseList) : baseList;
+
+            boolean ok = true;
+            for (MachineRecipe.ItemInput input : recipe.itemInputs) {
+                if (!simulate && input.probability < 1) {
+                    if (random.nextFloat() >= input.probability) {
+                        continue;
+                    }
+                }
+                int remainingAmount = input.amount;
+                for (ConfigurableItemStack stack : stacks) {
+                    if (stack.getAmount() > 0 && input.matches(stack.getResource().toStack())) {
+                        int taken = Math.min((int) stack.getAmount(), remainingAmount);
+                        stack.decrement(taken);
+                        remainingAmount -= taken;
+                        if (remainingAmount == 0)
+                            break;
+                    }
+                }
+                if (remainingAmount > 0)
+                    ok = false;
+            }
+
+            return ok;
+        }
+
+        boolean takeFluidInputs(MachineRecipe recipe, boolean simulate) {
+            List<ConfigurableFluidStack> baseList = inventory.getFluidInputs();
+            List<ConfigurableFluidStack> stacks = simulate ? ConfigurableFluidStack.copyList(baseList) : baseList;
+
+            boolean ok = true;
+            for (MachineRecipe.FluidInput input : recipe.fluidInputs) {
+                if (!simulate && input.probability < 1) {
+                    if (random.nextFloat() >= input.probability) {
+                        continue;
+                    }
+                }
+                long remainingAmount = input.amount;
+                for (ConfigurableFluidStack stack : stacks) {
+                    if (stack.getResource().equals(FluidVariant.of(input.fluid))) {
+                        long taken = Math.min(remainingAmount, stack.getAmount());
+                        stack.decrement(taken);
+                        remainingAmount -= taken;
+                        if (remainingAmount == 0)
+                            break;
+                    }
+                }
+                if (remainingAmount > 0)
+                    ok = false;
+            }
+            return ok;
+        }
+
+        boolean putItemOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock) {
+            List<ConfigurableItemStack> baseList = inventory.getItemOutputs();
+            List<ConfigurableItemStack> stacks = simulate ? ConfigurableItemStack.copyList(baseList) : baseList;
+
+            List<Integer> locksToToggle = new ArrayList<>();
+            List<Item> lockItems = new ArrayList<>();
+
+            boolean ok = true;
+            for (MachineRecipe.ItemOutput output : recipe.itemOutputs) {
+                if (output.probability < 1) {
+                    if (simulate)
+                        continue;
+                    float randFloat = random.nextFloat();
+                    if (randFloat > output.probability)
+                        continue;
+                }
+                int remainingAmount = output.amount;
+                for (int loopRun = 0; loopRun < 2; loopRun++) {
+                    int stackId = 0;
+                    for (ConfigurableItemStack stack : stacks) {
+                        stackId++;
+                        ItemVariant key = stack.getResource();
+                        if (key.getItem() == output.item || key.isBlank()) {
+                            int remainingCapacity = simulate ? (int) stack.getRemainingCapacityFor(ItemVariant.of(output.item))
+                                    : output.item.getMaxCount() - (int) stack.getAmount();
+                            int ins = Math.min(remainingAmount, remainingCapacity);
+                            if (key.isBlank()) {
+                                if ((stack.isMachineLocked() || stack.isPlayerLocked() || loopRun == 1)
+                                        && stack.isValid(new ItemStack(output.item))) {
+                                    stack.setAmount(ins);
+                                    stack.setKey(ItemVariant.of(output.item));
+                                } else {
+                                    ins = 0;
+                                }
+                            } else {
+                                stack.increment(ins);
+                            }
+                            remainingAmount -= ins;
+                            if (ins > 0) {
+                                locksToToggle.add(stackId - 1);
+                                lockItems.add(output.item);
+                            }
+                            if (remainingAmount == 0)
+                                break;
+                        }
+                    }
+                }
+                if (remainingAmount > 0)
+                    ok = false;
+            }
+
+            if (toggleLock) {
+                for (int i = 0; i < locksToToggle.size(); i++) {
+                    baseList.get(locksToToggle.get(i)).enableMachineLock(lockItems.get(i));
+                }
+            }
+            return ok;
+        }
+
+        boolean putFluidOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock) {
+            List<ConfigurableFluidStack> baseList = inventory.getFluidOutputs();
+            List<ConfigurableFluidStack> stacks = simulate ? ConfigurableFluidStack.copyList(baseList) : baseList;
+
+            List<Integer> locksToToggle = new ArrayList<>();
+            List<Fluid> lockFluids = new ArrayList<>();
+
+            boolean ok = true;
+            for (int i = 0; i < Math.min(recipe.fluidOutputs.size(), maxFluidOutputs); ++i) {
+                MachineRecipe.FluidOutput output = recipe.fluidOutputs.get(i);
+                if (output.probability < 1) {
+                    if (simulate)
+                        continue;
+                    float randFloat = random.nextFloat();
+                    if (randFloat > output.probability)
+                        continue;
+                }
+                outer: for (int tries = 0; tries < 2; ++tries) {
+                    for (int j = 0; j < stacks.size(); j++) {
+                        ConfigurableFluidStack stack = stacks.get(j);
+                        FluidVariant outputKey = FluidVariant.of(output.fluid);
+                        if (stack.isResourceAllowedByLock(outputKey)
+                                && ((tries == 1 && stack.isResourceBlank()) || stack.getResource().equals(outputKey))) {
+                            long inserted = Math.min(output.amount, stack.getRemainingSpace());
+                            if (inserted > 0) {
+                                stack.setKey(outputKey);
+                                stack.increment(inserted);
+                                locksToToggle.add(j);
+                                lockFluids.add(output.fluid);
+                            }
+                            if (inserted < output.amount) {
+                                ok = false;
+                            }
+                            break outer;
+                        }
+                    }
+                    if (tries == 1) {
+                        ok = false;
+                    }
+                }
+            }
+
+            if (toggleLock) {
+                for (int i = 0; i < locksToToggle.size(); i++) {
+                    baseList.get(locksToToggle.get(i)).enableMachineLock(lockFluids.get(i));
+                }
+            }
+            return ok;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.pipes.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import aztech.modern_industrialization.pipes.electricity.ElectricityNetworkData;
+import aztech.modern_industrialization.pipes.electricity.ElectricityNetworkNode;
+import java.util.*;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the networks of {@link PipeNetworkManager} are exactly the
+ * connected components of its links after links are added and removed.
+ */
+public class PipeNetworkManagerTest {
+    private static PipeNetworkType type;
+
+    private final Map<BlockPos, PipeNetworkNode> nodes = new HashMap<>();
+    // The links of the test, from the first node towards positive coordinates.
+    private final Set<Link> links = new HashSet<>();
+    private PipeNetworkManager manager;
+
+    @BeforeAll
+    public static void registerType() {
+        type = PipeNetworkType.register(new Identifier("modern_industrialization_tests", "test_pipe"), TestNetwork::new,
+                ElectricityNetworkNode::new, 0, false, null);
+    }
+
+    @Test
+    public void testSplitAndMergeLine() {
+        createGrid(10, 1);
+        for (int x = 0; x < 9; ++x) {
+            addLink(new BlockPos(x, 0, 0), Direction.EAST);
+        }
+        checkPartition();
+        assertEquals(1, manager.getNetworks().size());
+
+        // Cut in the middle, then at the end, then merge the pieces back.
+        removeLink(new BlockPos(4, 0, 0), Direction.EAST);
+        checkPartition();
+        assertEquals(2, manager.getNetworks().size());
+        removeLink(new BlockPos(8, 0, 0), Direction.EAST);
+        checkPartition();
+        assertEquals(3, manager.getNetworks().size());
+        addLink(new BlockPos(4, 0, 0), Direction.EAST);
+        checkPartition();
+        assertEquals(2, manager.getNetworks().size());
+        addLink(new BlockPos(8, 0, 0), Direction.EAST);
+        checkPartition();
+        assertEquals(1, manager.getNetworks().size());
+    }
+
+    @Test
+    public void testRandomCutsInGrid() {
+        int size = 12;
+        createGrid(size, size);
+        List<Link> allLinks = new ArrayList<>();
+        for (int x = 0; x < size; ++x) {
+            for (int z = 0; z < size; ++z) {
+                if (x + 1 < size) {
+                    allLinks.add(new Link(new BlockPos(x, 0, z), Direction.EAST));
+                }
+                if (z + 1 < size) {
+                    allLinks.add(new Link(new BlockPos(x, 0, z), Direction.SOUTH));
+                }
+            }
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; ++i) {
+            Link link = allLinks.get(random.nextInt(allLinks.size()));
+            if (links.contains(link)) {
+                removeLink(link.pos, link.direction);
+            } else {
+                addLink(link.pos, link.direction);
+            }
+            checkPartition();
+        }
+    }
+
+    private void createGrid(int width, int length) {
+        manager = new PipeNetworkManager(type);
+        for (int x = 0; x < width; ++x) {
+            for (int z = 0; z < length; ++z) {
+                BlockPos pos = new BlockPos(x, 0, z);
+                PipeNetworkNode node = new ElectricityNetworkNode();
+                manager.addNode(node, pos, new ElectricityNetworkData());
+                nodes.put(pos, node);
+            }
+        }
+    }
+
+    private void addLink(BlockPos pos, Direction direction) {
+        manager.addLink(pos, direction, false);
+        links.add(new Link(pos, direction));
+    }
+
+    private void removeLink(BlockPos pos, Direction direction) {
+        manager.removeLink(pos, direction);
+        links.remove(new Link(pos, direction));
+    }
+
+    /**
+     * Check that two nodes are in the same network if and only if they are
+     * connected by the links of the test.
+     */
+    private void checkPartition() {
+        manager.forceCheckStateCoherence();
+
+        Set<Set<BlockPos>> expected = new HashSet<>();
+        Set<BlockPos> visited = new HashSet<>();
+        for (BlockPos start : nodes.keySet()) {
+            if (visited.add(start)) {
+                Set<BlockPos> component = new HashSet<>();
+                Deque<BlockPos> queue = new ArrayDeque<>();
+                queue.add(start);
+                while (!queue.isEmpty()) {
+                    BlockPos pos = queue.poll();
+                    component.add(pos);
+                    for (Direction direction : Direction.values()) {
+                        BlockPos other = pos.offset(direction);
+                        if (isLinked(pos, direction) && visited.add(other)) {
+                            queue.add(other);
+                        }
+                    }
+                }
+                expected.add(component);
+            }
+        }
+
+        Map<PipeNetwork, Set<BlockPos>> actual = new HashMap<>();
+        for (Map.Entry<BlockPos, PipeNetworkNode> entry : nodes.entrySet()) {
+            actual.computeIfAbsent(entry.getValue().network, network -> new HashSet<>()).add(entry.getKey());
+        }
+        assertEquals(expected, new HashSet<>(actual.values()));
+        assertEquals(actual.keySet(), manager.getNetworks());
+    }
+
+    private boolean isLinked(BlockPos pos, Direction direction) {
+        if (direction.getDirection() == Direction.AxisDirection.POSITIVE) {
+            return links.contains(new Link(pos, direction));
+        } else {
+            return links.contains(new Link(pos.offset(direction), direction.getOpposite()));
+        }
+    }
+
+    private record Link(BlockPos pos, Direction direction) {
+    }
+
+    private static class TestNetwork extends PipeNetwork {
+        TestNetwork(int id, PipeNetworkData data) {
+            super(id, data == null ? new ElectricityNetworkData() : data);
+        }
+    }
+}
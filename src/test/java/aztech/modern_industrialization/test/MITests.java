@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.test;
+
+import aztech.modern_industrialization.ModernIndustrialization;
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import net.fabricmc.api.DedicatedServerModInitializer;
+import net.minecraft.Bootstrap;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+/**
+ * MI tests. Run by {@code ./gradlew test}, which depends on
+ * {@code ./gradlew runTestServer}.
+ *
+ * <p>
+ * The tests need the registries and the mixins, so they run in-process with the
+ * JUnit launcher, once all the mods have been initialized, and the game exits
+ * when they are done: no server or world is ever started. The value of the
+ * "modern_industrialization.test" property is the list of the test class
+ * directories.
+ */
+public class MITests implements DedicatedServerModInitializer {
+    @Override
+    public void onInitializeServer() {
+        String classDirs = System.getProperty("modern_industrialization.test");
+        if (classDirs == null) {
+            return;
+        }
+
+        Bootstrap.initialize();
+
+        Set<Path> roots = new HashSet<>();
+        for (String classDir : classDirs.split(File.pathSeparator)) {
+            roots.add(Path.of(classDir));
+        }
+        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                .selectors(DiscoverySelectors.selectClasspathRoots(roots))
+                .build();
+        SummaryGeneratingListener listener = new SummaryGeneratingListener();
+        LauncherFactory.create().execute(request, listener);
+
+        TestExecutionSummary summary = listener.getSummary();
+        StringWriter report = new StringWriter();
+        summary.printTo(new PrintWriter(report));
+        summary.printFailuresTo(new PrintWriter(report), 20);
+        ModernIndustrialization.LOGGER.info(report.toString());
+        System.exit(summary.getTotalFailureCount() == 0 ? 0 : 1);
+    }
+}